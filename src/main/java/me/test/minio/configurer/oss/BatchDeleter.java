@@ -0,0 +1,250 @@
+package me.test.minio.configurer.oss;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 批量删除
+ * <p>
+ * 从（通常是分页列举得到的）迭代器中按 1000 个一组取出对象，每组一次 DeleteObjects 请求，
+ * 多组并发执行；在途批次数不超过线程数，迭代器在此之前不会继续读取，列举不会远远跑在删除前面。
+ * 每个对象的删除结果回调给 Listener，并汇总到 Report。
+ *
+ * @author test
+ */
+@Slf4j
+public class BatchDeleter {
+
+    /**
+     * DeleteObjects 单次请求最多的对象数
+     */
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private final int threads;
+
+    private final ExecutorService executor;
+
+    public BatchDeleter(int threads) {
+        this.threads = Math.max(1, threads);
+        this.executor = Executors.newFixedThreadPool(this.threads,
+                new ThreadFactoryBuilder().setNameFormat("oss-delete-%d").setDaemon(true).build());
+    }
+
+    /**
+     * 删除迭代器中的全部对象，等待所有批次结束后返回
+     *
+     * @param items    待删除对象，按需读取
+     * @param keyOf    对象的展示 key，用于回调和汇总
+     * @param batch    删除一批对象，返回失败的对象及原因
+     * @param listener 逐个对象的结果回调，可为 null
+     * @return 删除结果
+     */
+    public <T> Report delete(Iterator<T> items, Function<T, String> keyOf, BatchFunction<T> batch, Listener listener) {
+        return delete(items, item -> null, keyOf, (partition, group) -> batch.delete(group), listener);
+    }
+
+    /**
+     * 删除迭代器中的全部对象，对象按分区分组成批，同一批只包含同一分区的对象；只遍历一次迭代器，
+     * 每个分区最多缓存一批未满的对象。等待所有批次结束后返回；迭代中途抛出异常时，未提交的对象按失败回调，
+     * 等待已提交的批次结束后抛出该异常
+     *
+     * @param items       待删除对象，按需读取
+     * @param partitionOf 对象所在分区，如所在集群
+     * @param keyOf       对象的展示 key，用于回调和汇总
+     * @param batch       删除同一分区的一批对象，返回失败的对象及原因
+     * @param listener    逐个对象的结果回调，可为 null
+     * @return 删除结果
+     */
+    @SneakyThrows
+    public <T, P> Report delete(Iterator<T> items, Function<T, P> partitionOf, Function<T, String> keyOf, PartitionBatchFunction<P, T> batch, Listener listener) {
+        Report report = new Report();
+        Listener callback = listener == null ? report : report.andThen(listener);
+        Semaphore inflight = new Semaphore(threads);
+        Map<P, List<T>> groups = new HashMap<>();
+        try {
+            while (items.hasNext()) {
+                T item = items.next();
+                P partition = partitionOf.apply(item);
+                List<T> group = groups.computeIfAbsent(partition, key -> new ArrayList<>(MAX_BATCH_SIZE));
+                group.add(item);
+                if (group.size() >= MAX_BATCH_SIZE) {
+                    submit(inflight, partition, group, keyOf, batch, callback);
+                    groups.remove(partition);
+                }
+            }
+            for (Iterator<Map.Entry<P, List<T>>> it = groups.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<P, List<T>> entry = it.next();
+                submit(inflight, entry.getKey(), entry.getValue(), keyOf, batch, callback);
+                it.remove();
+            }
+        } catch (Throwable e) {
+            // 迭代（如分页列举）或提交中途失败，已读出但未提交的对象按失败回调，汇总与回调保持一致
+            String error = "not deleted: " + e;
+            int pending = 0;
+            for (List<T> group : groups.values()) {
+                for (T item : group) {
+                    callback.failed(keyOf.apply(item), error);
+                }
+                pending += group.size();
+            }
+            log.warn("批量删除中断，{} 个对象未提交", pending, e);
+            throw e;
+        } finally {
+            // 取回全部许可即所有批次已结束，中断时也要等已提交的批次结束再返回
+            inflight.acquireUninterruptibly(threads);
+        }
+        log.info("批量删除完成，成功 {} 个，失败 {} 个", report.getDeleted(), report.getFailures().size());
+        return report;
+    }
+
+    /**
+     * 容器关闭时停止删除线程
+     */
+    @SneakyThrows
+    public void shutdown() {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private <T, P> void submit(Semaphore inflight, P partition, List<T> group, Function<T, String> keyOf,
+                               PartitionBatchFunction<P, T> batch, Listener listener) throws InterruptedException {
+        inflight.acquire();
+        try {
+            executor.execute(() -> {
+                try {
+                    run(partition, group, keyOf, batch, listener);
+                } finally {
+                    inflight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inflight.release();
+            throw e;
+        }
+    }
+
+    private static <T, P> void run(P partition, List<T> group, Function<T, String> keyOf, PartitionBatchFunction<P, T> batch, Listener listener) {
+        Map<T, String> failed;
+        try {
+            failed = batch.delete(partition, group);
+        } catch (Exception e) {
+            log.warn("批量删除请求失败，{} 个对象", group.size(), e);
+            failed = new HashMap<>(group.size());
+            for (T item : group) {
+                failed.put(item, String.valueOf(e.getMessage()));
+            }
+        }
+        for (T item : group) {
+            String error = failed == null ? null : failed.get(item);
+            if (error == null) {
+                listener.deleted(keyOf.apply(item));
+            } else {
+                listener.failed(keyOf.apply(item), error);
+            }
+        }
+    }
+
+    /**
+     * 删除一批对象
+     */
+    @FunctionalInterface
+    public interface BatchFunction<T> {
+
+        /**
+         * @param batch 不超过 1000 个对象
+         * @return 失败的对象及原因，全部成功时返回空
+         */
+        Map<T, String> delete(List<T> batch) throws Exception;
+    }
+
+    /**
+     * 删除同一分区的一批对象
+     */
+    @FunctionalInterface
+    public interface PartitionBatchFunction<P, T> {
+
+        /**
+         * @param partition 分区
+         * @param batch     不超过 1000 个对象
+         * @return 失败的对象及原因，全部成功时返回空
+         */
+        Map<T, String> delete(P partition, List<T> batch) throws Exception;
+    }
+
+    /**
+     * 逐个对象的删除结果，在删除线程中回调
+     */
+    public interface Listener {
+
+        void deleted(String key);
+
+        void failed(String key, String error);
+
+        default Listener andThen(Listener next) {
+            Listener self = this;
+            return new Listener() {
+                @Override
+                public void deleted(String key) {
+                    self.deleted(key);
+                    next.deleted(key);
+                }
+
+                @Override
+                public void failed(String key, String error) {
+                    self.failed(key, error);
+                    next.failed(key, error);
+                }
+            };
+        }
+    }
+
+    /**
+     * 删除结果汇总
+     */
+    public static class Report implements Listener {
+
+        private final AtomicLong deleted = new AtomicLong();
+
+        private final Map<String, String> failures = new ConcurrentHashMap<>();
+
+        @Override
+        public void deleted(String key) {
+            deleted.incrementAndGet();
+        }
+
+        @Override
+        public void failed(String key, String error) {
+            failures.put(key, error);
+        }
+
+        /**
+         * 成功删除的数量
+         */
+        public long getDeleted() {
+            return deleted.get();
+        }
+
+        /**
+         * 删除失败的对象及原因
+         */
+        public Map<String, String> getFailures() {
+            return Collections.unmodifiableMap(failures);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package me.test.minio.configurer.oss;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.MultimapBuilder;
+import com.google.common.collect.Multimaps;
+import com.google.common.io.BaseEncoding;
+import com.google.common.net.UrlEscapers;
+import io.minio.Time;
+import io.minio.http.Method;
+import lombok.SneakyThrows;
+import okhttp3.HttpUrl;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 批量预签名
+ * <p>
+ * 与 {@link io.minio.MinioClient#getPresignedObjectUrl} 生成完全一致的 SigV4 URL，区别在于：
+ * 派生的签名密钥按 日期/区域/服务 缓存，同一对象的分片地址共用一份 canonical request 模板，
+ * 每个分片只需一次 SHA-256 和一次 HMAC。
+ *
+ * @author test
+ */
+public class BatchPresigner {
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+
+    private static final String SERVICE = "s3";
+
+    private static final String SIGNED_HEADERS = "host";
+
+    /**
+     * 带 Content-MD5 时的签名头，按名称排序
+     */
+    private static final String SIGNED_HEADERS_WITH_MD5 = "content-md5;host";
+
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    private static final String HMAC_SHA256 = "HmacSHA256";
+
+    /**
+     * 分片序号占位符，生成模板后按分片序号替换
+     */
+    private static final String PART_NUMBER_PLACEHOLDER = "PARTNUMBER";
+
+    /**
+     * Content-MD5 占位符，签名时替换为分片摘要
+     */
+    private static final String CONTENT_MD5_PLACEHOLDER = "CONTENTMD5";
+
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(BatchPresigner::newMac);
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(BatchPresigner::newSha256);
+
+    private final CustomMinioClient minioClient;
+
+    private final String accessKey;
+
+    private final String secretKey;
+
+    /**
+     * 签名密钥缓存，key 为 日期/区域/服务
+     */
+    private final Map<String, byte[]> signingKeys = new ConcurrentHashMap<>();
+
+    public BatchPresigner(CustomMinioClient minioClient, String accessKey, String secretKey) {
+        this.minioClient = minioClient;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+    }
+
+    /**
+     * 预签名单个对象地址
+     *
+     * @param method      请求方式
+     * @param bucketName  桶名
+     * @param objectName  对象名
+     * @param expiry      有效期（秒）
+     * @param queryParams 额外查询参数，可为 null
+     * @return 签名地址
+     */
+    public String presign(Method method, String bucketName, String objectName, int expiry, Map<String, String> queryParams) {
+        return presign(method, bucketName, objectName, expiry, queryParams, ZonedDateTime.now());
+    }
+
+    /**
+     * 按指定签名时间预签名单个对象地址
+     */
+    String presign(Method method, String bucketName, String objectName, int expiry, Map<String, String> queryParams, ZonedDateTime date) {
+        return prepare(method, bucketName, objectName, expiry, queryParams, date, false).sign(null, null);
+    }
+
+    /**
+     * 批量预签名分片上传地址
+     *
+     * @param bucketName 桶名
+     * @param objectName 对象名
+     * @param uploadId   上传标识
+     * @param from       起始分片序号
+     * @param to         结束分片序号（包含）
+     * @param expiry     有效期（秒）
+     * @return 按分片序号排列的签名地址
+     */
+    public List<String> presignParts(String bucketName, String objectName, String uploadId, int from, int to, int expiry) {
+        List<Integer> partNumbers = new ArrayList<>(Math.max(to - from + 1, 0));
+        for (int i = from; i <= to; i++) {
+            partNumbers.add(i);
+        }
+        return presignParts(bucketName, objectName, uploadId, partNumbers, null, expiry);
+    }
+
+    /**
+     * 批量预签名指定分片的上传地址
+     * <p>
+     * 提供分片的 Content-MD5 时，该请求头会一并签入地址，上传时必须携带且与数据一致，否则服务端拒绝该分片。
+     *
+     * @param bucketName  桶名
+     * @param objectName  对象名
+     * @param uploadId    上传标识
+     * @param partNumbers 分片序号
+     * @param contentMd5s 与分片序号一一对应的 Content-MD5（base64），可为 null，元素为 null 时该分片不签入
+     * @param expiry      有效期（秒）
+     * @return 与分片序号一一对应的签名地址
+     */
+    public List<String> presignParts(String bucketName, String objectName, String uploadId, List<Integer> partNumbers, List<String> contentMd5s, int expiry) {
+        return presignParts(bucketName, objectName, uploadId, partNumbers, contentMd5s, expiry, ZonedDateTime.now());
+    }
+
+    /**
+     * 按指定签名时间批量预签名指定分片的上传地址
+     */
+    List<String> presignParts(String bucketName, String objectName, String uploadId, List<Integer> partNumbers, List<String> contentMd5s, int expiry, ZonedDateTime date) {
+        Map<String, String> queryParams = new HashMap<>(2);
+        queryParams.put("uploadId", uploadId);
+        queryParams.put("partNumber", PART_NUMBER_PLACEHOLDER);
+        Template[] templates = new Template[2];
+
+        List<String> urls = new ArrayList<>(partNumbers.size());
+        for (int i = 0; i < partNumbers.size(); i++) {
+            String partNumber = String.valueOf(partNumbers.get(i));
+            String contentMd5 = contentMd5s == null ? null : contentMd5s.get(i);
+            int index = contentMd5 == null ? 0 : 1;
+            if (templates[index] == null) {
+                templates[index] = prepare(Method.PUT, bucketName, objectName, expiry, queryParams, date, contentMd5 != null);
+            }
+            if (templates[index].splittable) {
+                urls.add(templates[index].sign(partNumber, contentMd5));
+            } else {
+                // 对象名等含有占位符时无法复用模板，逐个生成
+                Map<String, String> params = new HashMap<>(queryParams);
+                params.put("partNumber", partNumber);
+                urls.add(prepare(Method.PUT, bucketName, objectName, expiry, params, date, contentMd5 != null).sign(null, contentMd5));
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * 按 minio-java 的 presignV4 流程生成待签名模板
+     */
+    @SneakyThrows
+    private Template prepare(Method method, String bucketName, String objectName, int expiry, Map<String, String> queryParams, ZonedDateTime date, boolean contentMd5) {
+        String region = minioClient.getBucketRegion(bucketName);
+        // 与 GetPresignedObjectUrlArgs.extraQueryParams -> MinioClient.newMultimap 的复制顺序一致，保证参数顺序相同
+        Multimap<String, String> params = HashMultimap.create();
+        if (queryParams != null) {
+            params.putAll(Multimaps.forMap(queryParams));
+        }
+        params = HashMultimap.create(params);
+        HttpUrl url = minioClient.buildPresignUrl(method, bucketName, objectName, region, params);
+
+        String amzDate = date.format(Time.AMZ_DATE_FORMAT);
+        String signerDate = date.format(Time.SIGNER_DATE_FORMAT);
+        String scope = signerDate + "/" + region + "/" + SERVICE + "/aws4_request";
+        String signedHeaders = contentMd5 ? SIGNED_HEADERS_WITH_MD5 : SIGNED_HEADERS;
+
+        url = url.newBuilder()
+                .addEncodedQueryParameter(encode("X-Amz-Algorithm"), encode(ALGORITHM))
+                .addEncodedQueryParameter(encode("X-Amz-Credential"), encode(accessKey + "/" + scope))
+                .addEncodedQueryParameter(encode("X-Amz-Date"), encode(amzDate))
+                .addEncodedQueryParameter(encode("X-Amz-Expires"), encode(Integer.toString(expiry)))
+                .addEncodedQueryParameter(encode("X-Amz-SignedHeaders"), encode(signedHeaders))
+                .build();
+
+        String canonicalRequest = method.toString() + "\n"
+                + url.encodedPath() + "\n"
+                + canonicalQueryString(url.encodedQuery()) + "\n"
+                + (contentMd5 ? "content-md5:" + CONTENT_MD5_PLACEHOLDER + "\n" : "")
+                + "host:" + hostHeader(url) + "\n\n"
+                + signedHeaders + "\n"
+                + UNSIGNED_PAYLOAD;
+        String stringToSignPrefix = ALGORITHM + "\n" + amzDate + "\n" + scope + "\n";
+        return new Template(url.toString(), canonicalRequest, stringToSignPrefix, signingKey(signerDate, region));
+    }
+
+    /**
+     * 获取签名密钥，同一天同一区域只派生一次
+     */
+    private byte[] signingKey(String signerDate, String region) {
+        String cacheKey = signerDate + "/" + region + "/" + SERVICE;
+        byte[] key = signingKeys.get(cacheKey);
+        if (key == null) {
+            byte[] dateKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), signerDate);
+            byte[] dateRegionKey = hmac(dateKey, region);
+            byte[] dateRegionServiceKey = hmac(dateRegionKey, SERVICE);
+            key = hmac(dateRegionServiceKey, "aws4_request");
+            // 日期变化后旧密钥不会再用到
+            signingKeys.keySet().removeIf(k -> !k.startsWith(signerDate));
+            signingKeys.put(cacheKey, key);
+        }
+        return key;
+    }
+
+    /**
+     * 与 Signer.setCanonicalQueryString 一致：按参数名排序，同名参数保持原有顺序
+     */
+    private static String canonicalQueryString(String encodedQuery) {
+        if (encodedQuery == null) {
+            return "";
+        }
+        ListMultimap<String, String> signedQueryParams = MultimapBuilder.treeKeys().arrayListValues().build();
+        for (String queryParam : encodedQuery.split("&")) {
+            String[] tokens = queryParam.split("=");
+            if (tokens.length > 1) {
+                signedQueryParams.put(tokens[0], tokens[1]);
+            } else {
+                signedQueryParams.put(tokens[0], "");
+            }
+        }
+        return Joiner.on("&").withKeyValueSeparator("=").join(signedQueryParams.entries());
+    }
+
+    /**
+     * 与 MinioClient.getHostHeader 一致：默认端口不带端口号
+     */
+    private static String hostHeader(HttpUrl url) {
+        if (("http".equals(url.scheme()) && url.port() == 80) || ("https".equals(url.scheme()) && url.port() == 443)) {
+            return url.host();
+        }
+        return url.host() + ":" + url.port();
+    }
+
+    /**
+     * 与 S3Escaper.encode 一致
+     */
+    private static String encode(String str) {
+        if (str == null) {
+            return "";
+        }
+        return UrlEscapers.urlPathSegmentEscaper().escape(str)
+                .replace("!", "%21")
+                .replace("$", "%24")
+                .replace("&", "%26")
+                .replace("'", "%27")
+                .replace("(", "%28")
+                .replace(")", "%29")
+                .replace("*", "%2A")
+                .replace("+", "%2B")
+                .replace(",", "%2C")
+                .replace("/", "%2F")
+                .replace(":", "%3A")
+                .replace(";", "%3B")
+                .replace("=", "%3D")
+                .replace("@", "%40")
+                .replace("[", "%5B")
+                .replace("]", "%5D");
+    }
+
+    @SneakyThrows
+    private static byte[] hmac(byte[] key, String data) {
+        Mac mac = MAC.get();
+        mac.init(new SecretKeySpec(key, HMAC_SHA256));
+        return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256Hex(String data) {
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        return BaseEncoding.base16().encode(digest.digest(data.getBytes(StandardCharsets.UTF_8))).toLowerCase(Locale.US);
+    }
+
+    @SneakyThrows
+    private static Mac newMac() {
+        return Mac.getInstance(HMAC_SHA256);
+    }
+
+    @SneakyThrows
+    private static MessageDigest newSha256() {
+        return MessageDigest.getInstance("SHA-256");
+    }
+
+    /**
+     * 待签名模板，分片场景下按占位符切分，只替换分片序号
+     */
+    private static class Template {
+
+        private final String[] url;
+
+        private final String[] canonicalRequest;
+
+        private final String stringToSignPrefix;
+
+        private final byte[] signingKey;
+
+        private final boolean splittable;
+
+        Template(String url, String canonicalRequest, String stringToSignPrefix, byte[] signingKey) {
+            this.url = split(url);
+            this.canonicalRequest = split(canonicalRequest);
+            this.stringToSignPrefix = stringToSignPrefix;
+            this.signingKey = signingKey;
+            this.splittable = this.url.length == 2 && this.canonicalRequest.length == 2;
+        }
+
+        /**
+         * 生成签名地址
+         *
+         * @param partNumber 分片序号，非分片模板传 null
+         * @param contentMd5 Content-MD5，未签入时传 null
+         * @return 签名地址
+         */
+        String sign(String partNumber, String contentMd5) {
+            String requestUrl = join(url, partNumber);
+            String request = join(canonicalRequest, partNumber);
+            if (contentMd5 != null) {
+                request = request.replace("content-md5:" + CONTENT_MD5_PLACEHOLDER, "content-md5:" + contentMd5);
+            }
+            String stringToSign = stringToSignPrefix + sha256Hex(request);
+            String signature = BaseEncoding.base16().encode(hmac(signingKey, stringToSign)).toLowerCase(Locale.US);
+            return requestUrl + "&" + encode("X-Amz-Signature") + "=" + encode(signature);
+        }
+
+        private static String[] split(String str) {
+            String marker = "partNumber=" + PART_NUMBER_PLACEHOLDER;
+            int index = str.indexOf(marker);
+            if (index < 0 || index != str.lastIndexOf(marker)) {
+                return new String[]{str};
+            }
+            int valueIndex = index + "partNumber=".length();
+            return new String[]{str.substring(0, valueIndex), str.substring(valueIndex + PART_NUMBER_PLACEHOLDER.length())};
+        }
+
+        private static String join(String[] parts, String partNumber) {
+            if (parts.length == 1) {
+                return parts[0];
+            }
+            return parts[0] + (partNumber == null ? PART_NUMBER_PLACEHOLDER : partNumber) + parts[1];
+        }
+    }
+}
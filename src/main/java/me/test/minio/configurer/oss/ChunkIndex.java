@@ -0,0 +1,98 @@
+package me.test.minio.configurer.oss;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import me.test.minio.configurer.redis.RedisUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分片摘要索引，用于分片级去重
+ * <p>
+ * redis 中以分片 md5 为 key 记录已存在的数据位于哪个对象的哪个字节区间，
+ * 新的分片上传命中时不再上传，合并前通过 UploadPartCopy 从已有对象复制。
+ *
+ * @author test
+ */
+public class ChunkIndex {
+
+    /**
+     * redis key 前缀
+     */
+    private static final String KEY_PREFIX = "oss:chunk:";
+
+    private final RedisUtil redisUtil;
+
+    public ChunkIndex(RedisUtil redisUtil) {
+        this.redisUtil = redisUtil;
+    }
+
+    /**
+     * 批量查询分片摘要，一次 pipeline 完成
+     *
+     * @param md5s 分片 md5 列表，允许包含 null
+     * @return 与入参一一对应，未命中为 null
+     */
+    public List<ChunkRef> getAll(List<String> md5s) {
+        List<String> keys = new ArrayList<>(md5s.size());
+        for (String md5 : md5s) {
+            keys.add(key(md5 == null ? "" : md5));
+        }
+        List<ChunkRef> refs = new ArrayList<>(md5s.size());
+        for (Object ref : redisUtil.batchGet(keys)) {
+            refs.add((ChunkRef) ref);
+        }
+        return refs;
+    }
+
+    /**
+     * 登记分片摘要
+     *
+     * @param md5 分片 md5
+     * @param ref 分片所在位置
+     * @return 是否成功
+     */
+    public boolean put(String md5, ChunkRef ref) {
+        return redisUtil.set(key(md5), ref);
+    }
+
+    /**
+     * 删除分片摘要，源对象失效时调用
+     *
+     * @param md5 分片 md5
+     */
+    public void remove(String md5) {
+        redisUtil.del(key(md5));
+    }
+
+    private static String key(String md5) {
+        return KEY_PREFIX + md5.toLowerCase();
+    }
+
+    /**
+     * 分片所在位置
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ChunkRef {
+        /**
+         * 分片 md5
+         */
+        String md5;
+        /**
+         * 所在对象
+         */
+        String objectName;
+        /**
+         * 起始字节
+         */
+        long offset;
+        /**
+         * 长度
+         */
+        long length;
+    }
+}
@@ -0,0 +1,156 @@
+package me.test.minio.configurer.oss;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import me.test.minio.configurer.redis.RedisUtil;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文件内容摘要索引，用于秒传
+ * <p>
+ * redis 中以 md5+文件大小 为 key 记录已存在的对象，命中时无需再次上传。
+ * md5 由前端计算，不能直接登记：合并成功后由服务端异步读取一遍合并后的对象重新计算 md5，
+ * 与前端提供的一致才登记，否则伪造的摘要可以让其他用户秒传到不属于自己的数据。
+ *
+ * @author test
+ */
+@Slf4j
+public class ContentHashIndex {
+
+    /**
+     * redis key 前缀
+     */
+    private static final String KEY_PREFIX = "oss:content:";
+
+    /**
+     * 待校验的对象数量上限，超出时放弃登记，只影响秒传命中率
+     */
+    private static final int VERIFY_QUEUE_CAPACITY = 256;
+
+    private final RedisUtil redisUtil;
+
+    /**
+     * 校验线程，单线程顺序读取，避免与正常上传下载争用带宽
+     */
+    private final ThreadPoolExecutor verifier = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(VERIFY_QUEUE_CAPACITY),
+            new ThreadFactoryBuilder().setNameFormat("oss-hash-verify-%d").setDaemon(true).build());
+
+    public ContentHashIndex(RedisUtil redisUtil) {
+        this.redisUtil = redisUtil;
+    }
+
+    /**
+     * 查询摘要对应的对象
+     *
+     * @param md5  文件 md5
+     * @param size 文件大小
+     * @return 对象名，不存在时返回 null
+     */
+    public String get(String md5, long size) {
+        return (String) redisUtil.get(key(md5, size));
+    }
+
+    /**
+     * 登记摘要对应的对象
+     *
+     * @param md5        文件 md5
+     * @param size       文件大小
+     * @param objectName 对象名
+     * @return 是否成功
+     */
+    public boolean put(String md5, long size, String objectName) {
+        return redisUtil.set(key(md5, size), objectName);
+    }
+
+    /**
+     * 异步读取对象计算 md5，与声明的摘要和大小一致时登记
+     *
+     * @param md5        前端声明的文件 md5
+     * @param size       前端声明的文件大小
+     * @param objectName 对象名
+     * @param source     打开对象数据流
+     */
+    public void verifyAndPut(String md5, long size, String objectName, Callable<InputStream> source) {
+        try {
+            verifier.execute(() -> {
+                try (InputStream inputStream = source.call()) {
+                    CountingDigest digest = new CountingDigest(inputStream);
+                    if (md5.equalsIgnoreCase(digest.md5Hex()) && digest.count == size) {
+                        put(md5, size, objectName);
+                    } else {
+                        log.warn("秒传摘要与对象内容不一致，不登记: {} md5 {} size {}", objectName, md5, size);
+                    }
+                } catch (Exception e) {
+                    log.warn("秒传摘要校验失败: {}", objectName, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.info("秒传摘要校验队列已满，不登记: {}", objectName);
+        }
+    }
+
+    /**
+     * 容器关闭时停止校验，未完成的对象不再登记
+     */
+    public void shutdown() {
+        verifier.shutdownNow();
+    }
+
+    /**
+     * 删除摘要，对象已被删除时调用
+     *
+     * @param md5  文件 md5
+     * @param size 文件大小
+     */
+    public void remove(String md5, long size) {
+        redisUtil.del(key(md5, size));
+    }
+
+    private static String key(String md5, long size) {
+        return KEY_PREFIX + md5.toLowerCase() + ":" + size;
+    }
+
+    /**
+     * 读取数据流计算 md5，同时统计字节数
+     */
+    private static class CountingDigest extends FilterInputStream {
+
+        long count;
+
+        CountingDigest(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        String md5Hex() {
+            return DigestUtil.md5Hex(this);
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package me.test.minio.configurer.oss;
 
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
+import io.minio.AbortMultipartUploadResponse;
+import io.minio.ComposeSource;
 import io.minio.CreateMultipartUploadResponse;
+import io.minio.ListMultipartUploadsResponse;
+import io.minio.ListObjectsV2Response;
 import io.minio.ListPartsResponse;
 import io.minio.MinioClient;
 import io.minio.ObjectWriteResponse;
 import io.minio.errors.*;
+import io.minio.http.Method;
 import io.minio.messages.Part;
+import okhttp3.HttpUrl;
 
 import java.io.IOException;
 import java.security.InvalidKeyException;
@@ -37,4 +44,39 @@ public class CustomMinioClient extends MinioClient {
     public ListPartsResponse listMultipart(String bucketName, String region, String objectName, Integer maxParts, Integer partNumberMarker, String uploadId, Multimap<String, String> extraHeaders, Multimap<String, String> extraQueryParams) throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, ServerException, XmlParserException, ErrorResponseException, InternalException, InvalidResponseException {
         return this.listParts(bucketName, region, objectName, maxParts, partNumberMarker, uploadId, extraHeaders, extraQueryParams);
     }
+
+    public ListMultipartUploadsResponse listUploads(String bucketName, String region, String keyMarker, String uploadIdMarker, Integer maxUploads) throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, ServerException, XmlParserException, ErrorResponseException, InternalException, InvalidResponseException {
+        return this.listMultipartUploads(bucketName, region, null, null, keyMarker, maxUploads, null, uploadIdMarker, null, null);
+    }
+
+    public ListObjectsV2Response listObjectsPage(String bucketName, String region, String prefix, String delimiter, String continuationToken, int maxKeys) throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, ServerException, XmlParserException, ErrorResponseException, InternalException, InvalidResponseException {
+        return this.listObjectsV2(bucketName, region, delimiter, null, null, maxKeys, prefix, continuationToken, false, false, null, null);
+    }
+
+    public AbortMultipartUploadResponse abortUpload(String bucketName, String region, String objectName, String uploadId) throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, ServerException, XmlParserException, ErrorResponseException, InternalException, InvalidResponseException {
+        return this.abortMultipartUpload(bucketName, region, objectName, uploadId, null, null);
+    }
+
+    public ObjectWriteResponse putBytes(String bucketName, String region, String objectName, byte[] data, int length, Multimap<String, String> headers) throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, ServerException, XmlParserException, ErrorResponseException, InternalException, InvalidResponseException {
+        return this.putObject(bucketName, region, objectName, data, length, headers, null);
+    }
+
+    public String uploadPartBytes(String bucketName, String region, String objectName, String uploadId, int partNumber, byte[] data, int length) throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, ServerException, XmlParserException, ErrorResponseException, InternalException, InvalidResponseException {
+        return this.uploadPart(bucketName, region, objectName, data, length, uploadId, partNumber, null, null).etag();
+    }
+
+    public String copyPart(String bucketName, String region, String objectName, String uploadId, int partNumber, String sourceBucketName, String sourceObjectName, long offset, long length) throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, ServerException, XmlParserException, ErrorResponseException, InternalException, InvalidResponseException {
+        Multimap<String, String> headers = HashMultimap.create();
+        headers.putAll(ComposeSource.builder().bucket(sourceBucketName).object(sourceObjectName).build().genCopyHeaders());
+        headers.put("x-amz-copy-source-range", "bytes=" + offset + "-" + (offset + length - 1));
+        return this.uploadPartCopy(bucketName, region, objectName, uploadId, partNumber, headers, null).result().etag();
+    }
+
+    public String getBucketRegion(String bucketName) throws NoSuchAlgorithmException, InsufficientDataException, IOException, InvalidKeyException, ServerException, XmlParserException, ErrorResponseException, InternalException, InvalidResponseException {
+        return this.getRegion(bucketName, null);
+    }
+
+    public HttpUrl buildPresignUrl(Method method, String bucketName, String objectName, String region, Multimap<String, String> queryParamMap) throws NoSuchAlgorithmException {
+        return this.buildUrl(method, bucketName, objectName, region, queryParamMap);
+    }
 }
@@ -0,0 +1,107 @@
+package me.test.minio.configurer.oss;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+import javax.net.SocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按 oss.http 配置创建 MinioClient 使用的 OkHttpClient
+ * <p>
+ * OkHttp 默认只保留 5 个空闲连接，并发分片上传、下载时超出的连接用完即关闭，后续请求重新建连；
+ * 连接池应按并发请求数配置。MinioClient 使用同步请求，Dispatcher 的并发限制只作用于异步请求。
+ *
+ * @author test
+ */
+public final class HttpClientFactory {
+
+    private HttpClientFactory() {
+    }
+
+    /**
+     * @param http 连接参数
+     * @return OkHttpClient
+     */
+    public static OkHttpClient create(OssProperties.Http http) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(http.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(http.getMaxRequestsPerHost());
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(http.getMaxIdleConnections(), http.getKeepAlive(), TimeUnit.SECONDS))
+                .dispatcher(dispatcher)
+                .connectTimeout(http.getConnectTimeout(), TimeUnit.SECONDS)
+                .readTimeout(http.getReadTimeout(), TimeUnit.SECONDS)
+                .writeTimeout(http.getWriteTimeout(), TimeUnit.SECONDS)
+                .protocols(Boolean.TRUE.equals(http.getHttp2())
+                        ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                        : Collections.singletonList(Protocol.HTTP_1_1));
+        if (http.getSendBufferSize() != null || http.getReceiveBufferSize() != null) {
+            builder.socketFactory(new BufferedSocketFactory(http.getSendBufferSize(), http.getReceiveBufferSize()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 设置 socket 缓冲区大小，TLS 连接建立在该 socket 之上，同样生效
+     */
+    private static class BufferedSocketFactory extends SocketFactory {
+
+        private final SocketFactory delegate = SocketFactory.getDefault();
+
+        private final Integer sendBufferSize;
+
+        private final Integer receiveBufferSize;
+
+        BufferedSocketFactory(Integer sendBufferSize, Integer receiveBufferSize) {
+            this.sendBufferSize = sendBufferSize;
+            this.receiveBufferSize = receiveBufferSize;
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return configure(delegate.createSocket());
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return configure(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return configure(delegate.createSocket(host, port, localHost, localPort));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return configure(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+            return configure(delegate.createSocket(address, port, localAddress, localPort));
+        }
+
+        /**
+         * 接收缓冲区需在连接前设置才能影响 TCP 窗口，OkHttp 通过 createSocket() 创建未连接的 socket
+         */
+        private Socket configure(Socket socket) throws SocketException {
+            if (sendBufferSize != null) {
+                socket.setSendBufferSize(sendBufferSize);
+            }
+            if (receiveBufferSize != null) {
+                socket.setReceiveBufferSize(receiveBufferSize);
+            }
+            return socket;
+        }
+    }
+}
@@ -35,6 +35,13 @@ public class Minio {
      */
     private static final String READ_WRITE = "{\"Version\":\"2012-10-17\",\"Statement\":[{\"Effect\":\"Allow\",\"Principal\":{\"AWS\":[\"*\"]},\"Action\":[\"s3:GetBucketLocation\",\"s3:ListBucket\",\"s3:ListBucketMultipartUploads\"],\"Resource\":[\"arn:aws:s3:::" + BUCKET_PARAM + "\"]},{\"Effect\":\"Allow\",\"Principal\":{\"AWS\":[\"*\"]},\"Action\":[\"s3:DeleteObject\",\"s3:GetObject\",\"s3:ListMultipartUploadParts\",\"s3:PutObject\",\"s3:AbortMultipartUpload\"],\"Resource\":[\"arn:aws:s3:::" + BUCKET_PARAM + "/*\"]}]}";
 
+    /**
+     * 共享的客户端，多次调用复用连接
+     */
+    private static MinioClient client() {
+        return MinioClientRegistry.get(ENDPOINT, ACCESS_KEY, SECRET_KEY);
+    }
+
     /**
      * 文件url前半段
      *
@@ -51,7 +58,7 @@ public class Minio {
      * @param bucket 桶
      */
     public static void makeBucket(String bucket) throws Exception {
-        MinioClient client = MinioClient.builder().endpoint(ENDPOINT).credentials(ACCESS_KEY, SECRET_KEY).build();
+        MinioClient client = client();
         // 判断桶是否存在
         boolean isExist = client.bucketExists(BucketExistsArgs.builder().bucket(bucket).build());
         if (!isExist) {
@@ -67,7 +74,7 @@ public class Minio {
      * @param policy 权限
      */
     public static void setBucketPolicy(String bucket, String policy) throws Exception {
-        MinioClient client = MinioClient.builder().endpoint(ENDPOINT).credentials(ACCESS_KEY, SECRET_KEY).build();
+        MinioClient client = client();
         switch (policy) {
             case "read-only":
                 client.setBucketPolicy(SetBucketPolicyArgs.builder().bucket(bucket).config(READ_ONLY.replace(BUCKET_PARAM, bucket)).build());
@@ -93,7 +100,7 @@ public class Minio {
      * @return 文件url
      */
     public static String uploadFile(String bucket, String objectKey, String filePath) throws Exception {
-        MinioClient client = MinioClient.builder().endpoint(ENDPOINT).credentials(ACCESS_KEY, SECRET_KEY).build();
+        MinioClient client = client();
         client.uploadObject(UploadObjectArgs.builder().bucket(bucket).object(objectKey).filename(filePath).build());
         return getObjectPrefixUrl(bucket) + objectKey;
     }
@@ -107,7 +114,7 @@ public class Minio {
      * @return 文件url
      */
     public static String uploadInputStream(String bucket, String objectKey, InputStream inputStream) throws Exception {
-        MinioClient client = MinioClient.builder().endpoint(ENDPOINT).credentials(ACCESS_KEY, SECRET_KEY).build();
+        MinioClient client = client();
         client.putObject(PutObjectArgs.builder().bucket(bucket).object(objectKey).stream(inputStream, inputStream.available(), -1).contentType("image/png").build());
         return getObjectPrefixUrl(bucket) + objectKey;
     }
@@ -120,7 +127,7 @@ public class Minio {
      * @return 文件流
      */
     public static InputStream download(String bucket, String objectKey) throws Exception {
-        MinioClient client = MinioClient.builder().endpoint(ENDPOINT).credentials(ACCESS_KEY, SECRET_KEY).build();
+        MinioClient client = client();
         return client.getObject(GetObjectArgs.builder().bucket(bucket).object(objectKey).build());
     }
 
@@ -134,7 +141,7 @@ public class Minio {
      * @return 新文件url
      */
     public static String copyFile(String sourceBucket, String sourceObjectKey, String bucket, String objectKey) throws Exception {
-        MinioClient client = MinioClient.builder().endpoint(ENDPOINT).credentials(ACCESS_KEY, SECRET_KEY).build();
+        MinioClient client = client();
         CopySource source = CopySource.builder().bucket(sourceBucket).object(sourceObjectKey).build();
         client.copyObject(CopyObjectArgs.builder().bucket(bucket).object(objectKey).source(source).build());
         return getObjectPrefixUrl(bucket) + objectKey;
@@ -147,7 +154,7 @@ public class Minio {
      * @param objectKey 文件key
      */
     public static void deleteFile(String bucket, String objectKey) throws Exception {
-        MinioClient client = MinioClient.builder().endpoint(ENDPOINT).credentials(ACCESS_KEY, SECRET_KEY).build();
+        MinioClient client = client();
         client.removeObject(RemoveObjectArgs.builder().bucket(bucket).object(objectKey).build());
     }
 
@@ -160,7 +167,7 @@ public class Minio {
      * @return 文件签名地址
      */
     public static String getSignedUrl(String bucket, String objectKey, int expires) throws Exception {
-        MinioClient client = MinioClient.builder().endpoint(ENDPOINT).credentials(ACCESS_KEY, SECRET_KEY).build();
+        MinioClient client = client();
         return client.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder().method(Method.GET).bucket(bucket).object(objectKey).expiry(expires).build());
     }
 
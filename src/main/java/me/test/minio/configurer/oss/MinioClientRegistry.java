@@ -0,0 +1,62 @@
+package me.test.minio.configurer.oss;
+
+import io.minio.MinioClient;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import okhttp3.OkHttpClient;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 进程内共享的 MinioClient
+ * <p>
+ * 按 endpoint 和凭证懒加载，同一组参数始终返回同一个客户端。所有客户端共用一个 OkHttpClient，
+ * 即共用连接池和线程，连续调用复用 keep-alive 连接，不再每次新建连接池、重新建连和 TLS 握手。
+ *
+ * @author test
+ */
+public final class MinioClientRegistry {
+
+    /**
+     * 使用 oss.http 的默认参数
+     */
+    private static final OkHttpClient HTTP_CLIENT = HttpClientFactory.create(new OssProperties.Http());
+
+    private static final ConcurrentMap<Key, MinioClient> CLIENTS = new ConcurrentHashMap<>();
+
+    private MinioClientRegistry() {
+    }
+
+    /**
+     * 获取客户端，不存在时创建
+     *
+     * @param endpoint  服务端点
+     * @param accessKey 用户名
+     * @param secretKey 密码
+     * @return 客户端
+     */
+    public static MinioClient get(String endpoint, String accessKey, String secretKey) {
+        return CLIENTS.computeIfAbsent(new Key(endpoint, accessKey, secretKey), key -> MinioClient.builder()
+                .endpoint(endpoint)
+                .credentials(accessKey, secretKey)
+                .httpClient(HTTP_CLIENT)
+                .build());
+    }
+
+    /**
+     * 丢弃全部客户端并关闭空闲连接，如凭证轮换后
+     */
+    public static void clear() {
+        CLIENTS.clear();
+        HTTP_CLIENT.connectionPool().evictAll();
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class Key {
+        private final String endpoint;
+        private final String accessKey;
+        private final String secretKey;
+    }
+}
@@ -1,18 +1,26 @@
 package me.test.minio.configurer.oss;
 
+import cn.hutool.core.util.StrUtil;
 import io.minio.MinioClient;
 import lombok.SneakyThrows;
 import me.test.minio.configurer.redis.RedisUtil;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.*;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration(proxyBeanMethods = false)
 @ConditionalOnClass({MinioClient.class})
 @EnableConfigurationProperties(OssProperties.class)
 @ConditionalOnExpression("${oss.enabled}")
 @ConditionalOnProperty(value = "oss.type", havingValue = "minio")
+@EnableScheduling
 public class MinioConfiguration {
 
 
@@ -23,13 +31,128 @@ public class MinioConfiguration {
         return new CustomMinioClient(MinioClient.builder()
                 .endpoint(ossProperties.getEndpoint())
                 .credentials(ossProperties.getAccessKey(), ossProperties.getSecretKey())
+                .httpClient(HttpClientFactory.create(ossProperties.getHttp()))
                 .build());
     }
 
     @Bean
-    @ConditionalOnBean({CustomMinioClient.class, RedisUtil.class})
+    @ConditionalOnBean(CustomMinioClient.class)
+    @ConditionalOnMissingBean(BatchPresigner.class)
+    public BatchPresigner batchPresigner(CustomMinioClient minioClient, OssProperties ossProperties) {
+        return new BatchPresigner(minioClient, ossProperties.getAccessKey(), ossProperties.getSecretKey());
+    }
+
+    @Bean
+    @ConditionalOnBean({CustomMinioClient.class, BatchPresigner.class})
+    @ConditionalOnMissingBean(ShardRouter.class)
+    public ShardRouter shardRouter(CustomMinioClient minioClient, BatchPresigner presigner, OssProperties ossProperties) {
+        List<ShardRouter.Shard> shards = new ArrayList<>();
+        if (ossProperties.getShards().isEmpty()) {
+            shards.add(new ShardRouter.Shard(ossProperties.getEndpoint(), 1, minioClient, presigner));
+        }
+        for (OssProperties.ShardEndpoint endpoint : ossProperties.getShards()) {
+            String accessKey = StrUtil.blankToDefault(endpoint.getAccessKey(), ossProperties.getAccessKey());
+            String secretKey = StrUtil.blankToDefault(endpoint.getSecretKey(), ossProperties.getSecretKey());
+            CustomMinioClient client = new CustomMinioClient(MinioClient.builder()
+                    .endpoint(endpoint.getEndpoint())
+                    .credentials(accessKey, secretKey)
+                    .httpClient(HttpClientFactory.create(ossProperties.getHttp()))
+                    .build());
+            shards.add(new ShardRouter.Shard(endpoint.getEndpoint(), endpoint.getWeight(), client, new BatchPresigner(client, accessKey, secretKey)));
+        }
+        return new ShardRouter(shards);
+    }
+
+    @Bean
+    @ConditionalOnBean(RedisUtil.class)
+    @ConditionalOnMissingBean(MultipartSessionStore.class)
+    public MultipartSessionStore multipartSessionStore(RedisUtil redisUtil) {
+        return new MultipartSessionStore(redisUtil);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnBean(RedisUtil.class)
+    @ConditionalOnMissingBean(ContentHashIndex.class)
+    public ContentHashIndex contentHashIndex(RedisUtil redisUtil) {
+        return new ContentHashIndex(redisUtil);
+    }
+
+    @Bean
+    @ConditionalOnBean(RedisUtil.class)
+    @ConditionalOnMissingBean(ChunkIndex.class)
+    public ChunkIndex chunkIndex(RedisUtil redisUtil) {
+        return new ChunkIndex(redisUtil);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(ParallelPartUploader.class)
+    public ParallelPartUploader parallelPartUploader(OssProperties ossProperties) {
+        return new ParallelPartUploader(ossProperties);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(ParallelRangeDownloader.class)
+    public ParallelRangeDownloader parallelRangeDownloader(OssProperties ossProperties) {
+        return new ParallelRangeDownloader(ossProperties);
+    }
+
+    @Bean
+    @ConditionalOnBean(RedisUtil.class)
+    @ConditionalOnMissingBean(PresignedUrlCache.class)
+    public PresignedUrlCache presignedUrlCache(OssProperties ossProperties, RedisUtil redisUtil) {
+        return new PresignedUrlCache(ossProperties, Boolean.TRUE.equals(ossProperties.getPresignCacheRedis()) ? redisUtil : null);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(ObjectMetadataCache.class)
+    public ObjectMetadataCache objectMetadataCache(OssProperties ossProperties) {
+        return new ObjectMetadataCache(ossProperties);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(BatchDeleter.class)
+    public BatchDeleter batchDeleter(OssProperties ossProperties) {
+        return new BatchDeleter(ossProperties.getDeleteThreads());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(PagedLister.class)
+    public PagedLister pagedLister(OssProperties ossProperties) {
+        return new PagedLister(ossProperties.getListThreads());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(ParallelLister.class)
+    public ParallelLister parallelLister(OssProperties ossProperties) {
+        return new ParallelLister(ossProperties.getListConcurrency(), ossProperties.getListSplitDepth());
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(value = "oss.inventory-dir")
+    @ConditionalOnMissingBean(ObjectInventory.class)
+    public ObjectInventory objectInventory(OssProperties ossProperties) {
+        return new ObjectInventory(new File(ossProperties.getInventoryDir()), ossProperties.getInventoryCompactThreshold());
+    }
+
+    @Bean
+    @ConditionalOnBean({ShardRouter.class, RedisUtil.class})
     @ConditionalOnMissingBean(MinioTemplate.class)
-    public MinioTemplate minioTemplate(RedisUtil redisUtil,CustomMinioClient minioClient, OssProperties ossProperties) {
-        return new MinioTemplate(redisUtil,minioClient, ossProperties);
+    public MinioTemplate minioTemplate(RedisUtil redisUtil,ShardRouter shardRouter, OssProperties ossProperties, MultipartSessionStore sessionStore, ContentHashIndex contentHashIndex, ChunkIndex chunkIndex, ParallelPartUploader partUploader, ParallelRangeDownloader rangeDownloader, PresignedUrlCache presignedUrlCache, ObjectMetadataCache metadataCache, BatchDeleter batchDeleter, PagedLister pagedLister, ParallelLister parallelLister, ObjectProvider<ObjectInventory> inventory) {
+        return new MinioTemplate(redisUtil,shardRouter, ossProperties, sessionStore, contentHashIndex, chunkIndex, partUploader, rangeDownloader, presignedUrlCache, metadataCache, batchDeleter, pagedLister, parallelLister, inventory.getIfAvailable());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnBean({ShardRouter.class, MultipartSessionStore.class})
+    @ConditionalOnMissingBean(MultipartUploadSweeper.class)
+    @ConditionalOnProperty(value = "oss.sweep-enabled", havingValue = "true", matchIfMissing = true)
+    public MultipartUploadSweeper multipartUploadSweeper(RedisUtil redisUtil, ShardRouter shardRouter, MultipartSessionStore sessionStore, OssProperties ossProperties) {
+        return new MultipartUploadSweeper(redisUtil, shardRouter, sessionStore, ossProperties);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnBean(MinioTemplate.class)
+    @ConditionalOnMissingBean(MultipartMergeExecutor.class)
+    public MultipartMergeExecutor multipartMergeExecutor(MinioTemplate minioTemplate, RedisUtil redisUtil, OssProperties ossProperties) {
+        return new MultipartMergeExecutor(minioTemplate, redisUtil, ossProperties);
     }
-}
\ No newline at end of file
+}
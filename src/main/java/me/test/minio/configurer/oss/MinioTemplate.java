@@ -2,15 +2,23 @@ package me.test.minio.configurer.oss;
 
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.lang.UUID;
+import cn.hutool.core.util.HexUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONArray;
 import cn.hutool.json.JSONObject;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Iterables;
 import io.minio.*;
+import io.minio.errors.ErrorResponseException;
 import io.minio.http.Method;
 import io.minio.messages.Bucket;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
 import io.minio.messages.Item;
+import io.minio.messages.ListBucketResultV2;
+import io.minio.messages.ListPartsResult;
 import io.minio.messages.Part;
+import io.minio.messages.Prefix;
 import lombok.AllArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -19,30 +27,103 @@ import me.test.minio.util.Dates;
 import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
+import java.io.File;
 import java.io.InputStream;
 import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Slf4j
 @AllArgsConstructor
 public class MinioTemplate {
 
+    /**
+     * S3 单个对象允许的最大分片数
+     */
+    public static final int MAX_PARTS = 10000;
+
+    /**
+     * listParts 单页最大数量
+     */
+    private static final int LIST_PARTS_PAGE_SIZE = 1000;
+
+    /**
+     * md5 的 hex 形式
+     */
+    private static final Pattern MD5_HEX = Pattern.compile("[0-9a-fA-F]{32}");
+
     /**
      * redis 工具类
      */
     RedisUtil redisUtil;
 
     /**
-     * MinIO 客户端
+     * MinIO 分片路由，对象按对象名路由到所在集群
      */
-    CustomMinioClient minioClient;
+    ShardRouter shardRouter;
 
     /**
      * MinIO 配置类
      */
     OssProperties ossProperties;
 
+    /**
+     * 分片上传会话存储
+     */
+    MultipartSessionStore sessionStore;
+
+    /**
+     * 秒传摘要索引
+     */
+    ContentHashIndex contentHashIndex;
+
+    /**
+     * 分片去重摘要索引
+     */
+    ChunkIndex chunkIndex;
+
+    /**
+     * 并发分片上传
+     */
+    ParallelPartUploader partUploader;
+
+    /**
+     * 并发分段下载
+     */
+    ParallelRangeDownloader rangeDownloader;
+
+    /**
+     * 预签名地址缓存
+     */
+    PresignedUrlCache presignedUrlCache;
+
+    /**
+     * 桶与对象元数据缓存
+     */
+    ObjectMetadataCache metadataCache;
+
+    /**
+     * 批量删除
+     */
+    BatchDeleter batchDeleter;
+
+    /**
+     * 分页列举
+     */
+    PagedLister pagedLister;
+
+    /**
+     * 按前缀分区并行列举
+     */
+    ParallelLister parallelLister;
+
+    /**
+     * 本地对象清单索引，未配置 oss.inventory-dir 时为 null
+     */
+    ObjectInventory inventory;
+
     /**
      * 初始化默认存储桶
      */
@@ -58,6 +139,16 @@ public class MinioTemplate {
         ;
     }
 
+    /**
+     * 是否允许通过下载接口公开访问存储桶，只允许默认存储桶与 oss.download-buckets 中配置的存储桶
+     *
+     * @param bucketName 存储桶名
+     * @return /
+     */
+    public boolean isDownloadAllowed(String bucketName) {
+        return bucketName.equals(ossProperties.getDefaultBucketName()) || ossProperties.getDownloadBuckets().contains(bucketName);
+    }
+
     /**
      * 查询所有存储桶
      *
@@ -65,30 +156,41 @@ public class MinioTemplate {
      */
     @SneakyThrows
     public List<Bucket> listBuckets() {
-        return minioClient.listBuckets();
+        return shardRouter.primary().getClient().listBuckets();
     }
 
     /**
-     * 桶是否存在
+     * 桶是否存在，分片模式下需每个分片都存在
      *
      * @param bucketName 桶名
      * @return 是否存在
      */
-    @SneakyThrows
     private boolean bucketExists(String bucketName) {
-        return minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
+        for (ShardRouter.Shard shard : shardRouter.all()) {
+            if (!bucketExists(shard, bucketName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean bucketExists(ShardRouter.Shard shard, String bucketName) {
+        return metadataCache.bucketExists(shard.getName(), bucketName,
+                () -> shard.getClient().bucketExists(BucketExistsArgs.builder().bucket(bucketName).build()));
     }
 
     /**
-     * 创建存储桶
+     * 创建存储桶，分片模式下在每个分片上创建
      *
      * @param bucketName 桶名
      */
     @SneakyThrows
     public void makeBucket(String bucketName) {
-        if (!bucketExists(bucketName)) {
-            minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
-
+        for (ShardRouter.Shard shard : shardRouter.all()) {
+            if (!bucketExists(shard, bucketName)) {
+                shard.getClient().makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
+                metadataCache.putBucket(shard.getName(), bucketName);
+            }
         }
     }
 
@@ -99,7 +201,10 @@ public class MinioTemplate {
      */
     @SneakyThrows
     public void removeBucket(String bucketName) {
-        minioClient.removeBucket(RemoveBucketArgs.builder().bucket(bucketName).build());
+        for (ShardRouter.Shard shard : shardRouter.all()) {
+            shard.getClient().removeBucket(RemoveBucketArgs.builder().bucket(bucketName).build());
+            metadataCache.invalidateBucket(shard.getName(), bucketName);
+        }
     }
 
 
@@ -114,16 +219,8 @@ public class MinioTemplate {
      */
     @SneakyThrows
     public OssFile putObject(InputStream inputStream, String bucketName, String originalFileName) {
-        String uuidFileName = generateOssUuidFileName(originalFileName);
         try {
-            if (StrUtil.isEmpty(bucketName)) {
-                bucketName = ossProperties.getDefaultBucketName();
-            }
-            minioClient.putObject(
-                    PutObjectArgs.builder().bucket(bucketName).object(uuidFileName).stream(
-                            inputStream, inputStream.available(), -1)
-                            .build());
-            return new OssFile(uuidFileName, originalFileName);
+            return putObjectStream(inputStream, -1, bucketName, originalFileName, null);
         } finally {
             if (inputStream != null) {
                 inputStream.close();
@@ -132,21 +229,51 @@ public class MinioTemplate {
     }
 
     /**
-     * 返回临时带签名、过期时间一天、Get请求方式的访问URL
+     * 流式上传文件，边读边按分片上传，不落临时文件
+     * <p>
+     * 分片从节点共享的缓冲区池中取得并发上传（oss.upload-concurrency），内存受缓冲区池大小限制；
+     * 数据不足一个分片时直接 putObject。最大支持 {@link #MAX_PARTS} 个分片。
+     *
+     * @param inputStream      流，如请求体
+     * @param contentLength    流长度，未知时传 -1
+     * @param bucketName       桶名
+     * @param originalFileName 原始文件名
+     * @param contentType      类型
+     * @return OssFile
+     */
+    @SneakyThrows
+    public OssFile putObjectStream(InputStream inputStream, long contentLength, String bucketName, String originalFileName, String contentType) {
+        if (StrUtil.isEmpty(bucketName)) {
+            bucketName = ossProperties.getDefaultBucketName();
+        }
+        if (StrUtil.isBlank(contentType)) {
+            contentType = "application/octet-stream";
+        }
+        if (contentLength > (long) partUploader.getPartSize() * MAX_PARTS) {
+            throw new IllegalArgumentException("object is too large for stream upload: " + contentLength);
+        }
+        String uuidFileName = generateOssUuidFileName(originalFileName);
+        HashMultimap<String, String> headers = HashMultimap.create();
+        headers.put("Content-Type", contentType);
+        ShardRouter.Shard shard = shardRouter.route(uuidFileName);
+        ObjectSummary uploaded = partUploader.upload(shard.getClient(), bucketName, uuidFileName, inputStream, headers);
+        metadataCache.invalidateObject(shard.getName(), bucketName, uuidFileName);
+        presignedUrlCache.invalidate(Method.GET, bucketName, uuidFileName);
+        indexObject(bucketName, uploaded);
+        return new OssFile(uuidFileName, originalFileName);
+    }
+
+    /**
+     * 返回临时带签名、Get请求方式的访问URL，有效期由 oss.presign-expiry 配置（默认一天）。
+     * 剩余有效期充足时返回缓存的同一个地址
      *
      * @param bucketName  桶名
      * @param ossFilePath Oss文件路径
      * @return
      */
-    @SneakyThrows
     public String getPresignedObjectUrl(String bucketName, String ossFilePath) {
-        return minioClient.getPresignedObjectUrl(
-                GetPresignedObjectUrlArgs.builder()
-                        .method(Method.GET)
-                        .bucket(bucketName)
-                        .object(ossFilePath)
-                        .expiry(60 * 60 * 24)
-                        .build());
+        return presignedUrlCache.get(Method.GET, bucketName, ossFilePath, () -> shardRouter.route(ossFilePath).getPresigner()
+                .presign(Method.GET, bucketName, ossFilePath, presignedUrlCache.getExpiry(), null));
     }
 
     /**
@@ -157,12 +284,150 @@ public class MinioTemplate {
      */
     @SneakyThrows
     public InputStream getObject(String bucketName, String ossFilePath) {
-        return minioClient.getObject(
+        return shardRouter.route(ossFilePath).getClient().getObject(
                 GetObjectArgs.builder().bucket(bucketName).object(ossFilePath).build());
     }
 
     /**
-     * 查询桶的对象信息
+     * 获取对象的指定字节区间
+     *
+     * @param bucketName  桶名
+     * @param ossFilePath Oss文件路径
+     * @param offset      起始字节
+     * @param length      长度
+     */
+    @SneakyThrows
+    public InputStream getObject(String bucketName, String ossFilePath, long offset, long length) {
+        return shardRouter.route(ossFilePath).getClient().getObject(
+                GetObjectArgs.builder().bucket(bucketName).object(ossFilePath).offset(offset).length(length).build());
+    }
+
+    /**
+     * 获取对象的指定字节区间，限定为指定 ETag 的版本
+     * <p>
+     * 大小等元数据取自缓存时，用缓存的 ETag 限定读取，对象已被覆盖时 MinIO 返回 412，
+     * 不会按旧的大小返回新的内容；此时顺带清除缓存的元数据。
+     *
+     * @param bucketName  桶名
+     * @param ossFilePath Oss文件路径
+     * @param offset      起始字节，为 null 时读取整个对象
+     * @param length      长度，为 null 时读到末尾
+     * @param etag        对象 ETag
+     * @return 对象 ETag 已变化时返回 null
+     */
+    @SneakyThrows
+    public InputStream getObject(String bucketName, String ossFilePath, Long offset, Long length, String etag) {
+        ShardRouter.Shard shard = shardRouter.route(ossFilePath);
+        try {
+            return shard.getClient().getObject(GetObjectArgs.builder().bucket(bucketName).object(ossFilePath)
+                    .offset(offset).length(length).matchETag(etag).build());
+        } catch (ErrorResponseException e) {
+            if ("PreconditionFailed".equals(e.errorResponse().code())) {
+                metadataCache.invalidateObject(shard.getName(), bucketName, ossFilePath);
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 并发分段下载到本地文件，中断后再次调用同一目标文件时从断点继续
+     *
+     * @param bucketName  桶名
+     * @param ossFilePath Oss文件路径
+     * @param target      目标文件
+     * @return 目标文件
+     */
+    @SneakyThrows
+    public File downloadObject(String bucketName, String ossFilePath, File target) {
+        CustomMinioClient minioClient = shardRouter.route(ossFilePath).getClient();
+        StatObjectResponse stat = minioClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(ossFilePath).build());
+        // 各区间限定为 stat 时的 ETag，下载期间对象被覆盖时返回 412，不会把新旧内容拼在一起
+        return rangeDownloader.download(stat.size(), stat.etag(), (offset, length) -> minioClient.getObject(
+                GetObjectArgs.builder().bucket(bucketName).object(ossFilePath).offset(offset).length(length).matchETag(stat.etag()).build()), target);
+    }
+
+    /**
+     * 查询对象元数据，优先使用缓存
+     *
+     * @param bucketName  桶名
+     * @param ossFilePath Oss文件路径
+     * @return 对象或桶不存在时返回 null
+     */
+    public ObjectMetadataCache.ObjectMeta objectMeta(String bucketName, String ossFilePath) {
+        return metadataCache.objectMeta(shardRouter.route(ossFilePath).getName(), bucketName, ossFilePath, () -> {
+            StatObjectResponse stat = statObject(bucketName, ossFilePath);
+            return stat == null ? null : new ObjectMetadataCache.ObjectMeta(stat.size(), stat.etag(),
+                    stat.lastModified().toInstant().toEpochMilli(), stat.contentType());
+        });
+    }
+
+    /**
+     * 查询对象元数据
+     *
+     * @param bucketName  桶名
+     * @param ossFilePath Oss文件路径
+     * @return 对象或桶不存在时返回 null
+     */
+    @SneakyThrows
+    public StatObjectResponse statObject(String bucketName, String ossFilePath) {
+        try {
+            return shardRouter.route(ossFilePath).getClient().statObject(
+                    StatObjectArgs.builder().bucket(bucketName).object(ossFilePath).build());
+        } catch (ErrorResponseException e) {
+            String code = e.errorResponse().code();
+            if ("NoSuchKey".equals(code) || "NoSuchBucket".equals(code) || "NoSuchObject".equals(code)) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 批量删除对象，只遍历一次对象名，按所在分片分组，每个分片内 1000 个一批并发删除
+     *
+     * @param bucketName  桶名
+     * @param objectNames 对象名，按需读取
+     * @param listener    逐个对象的结果回调，可为 null
+     * @return 删除结果
+     */
+    public BatchDeleter.Report removeObjects(String bucketName, Iterable<String> objectNames, BatchDeleter.Listener listener) {
+        return batchDeleter.delete(objectNames.iterator(), shardRouter::route, name -> name,
+                (shard, batch) -> removeBatch(shard, bucketName, batch), listener);
+    }
+
+    @SneakyThrows
+    private Map<String, String> removeBatch(ShardRouter.Shard shard, String bucketName, List<String> batch) {
+        List<DeleteObject> objects = new ArrayList<>(batch.size());
+        for (String name : batch) {
+            objects.add(new DeleteObject(name));
+        }
+        Map<String, String> failed = new HashMap<>();
+        try {
+            // 结果是惰性的，遍历时才发出请求
+            for (Result<DeleteError> result : shard.getClient().removeObjects(
+                    RemoveObjectsArgs.builder().bucket(bucketName).objects(objects).build())) {
+                DeleteError error = result.get();
+                failed.put(error.objectName(), error.code() + ": " + error.message());
+            }
+            if (inventory != null) {
+                for (String name : batch) {
+                    if (!failed.containsKey(name)) {
+                        inventory.remove(bucketName, name);
+                    }
+                }
+            }
+        } finally {
+            for (String name : batch) {
+                metadataCache.invalidateObject(shard.getName(), bucketName, name);
+                presignedUrlCache.invalidate(Method.GET, bucketName, name);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * 查询桶的对象信息，分片模式下依次列举每个分片
      *
      * @param bucketName 桶名
      * @param recursive  是否递归查询
@@ -170,8 +435,112 @@ public class MinioTemplate {
      */
     @SneakyThrows
     public Iterable<Result<Item>> listObjects(String bucketName, boolean recursive) {
-        return minioClient.listObjects(
-                ListObjectsArgs.builder().bucket(bucketName).recursive(recursive).build());
+        List<Iterable<Result<Item>>> results = new ArrayList<>();
+        for (ShardRouter.Shard shard : shardRouter.all()) {
+            results.add(shard.getClient().listObjects(
+                    ListObjectsArgs.builder().bucket(bucketName).recursive(recursive).build()));
+        }
+        return Iterables.concat(results);
+    }
+
+    /**
+     * 递归列举桶内对象，按页请求并预取下一页，内存与桶大小无关；分片模式下依次列举每个分片。
+     * 用完或提前结束时应关闭返回的 Stream
+     *
+     * @param bucketName 桶名
+     * @param prefix     前缀，可为 null
+     * @param pageSize   每页数量，最大 1000，为 null 时使用 oss.list-page-size
+     * @return 对象摘要
+     */
+    public Stream<ObjectSummary> listObjectsStream(String bucketName, String prefix, Integer pageSize) {
+        int maxKeys = PagedLister.pageSize(pageSize == null ? ossProperties.getListPageSize() : pageSize);
+        List<PagedLister.PageFetcher<ObjectSummary>> fetchers = new ArrayList<>();
+        for (ShardRouter.Shard shard : shardRouter.all()) {
+            fetchers.add(token -> listPage(shard, bucketName, prefix, token, maxKeys));
+        }
+        return pagedLister.stream(fetchers);
+    }
+
+    /**
+     * 按前缀分区并行列举，适合对象数量很大的桶；分片模式下各分片同时列举。用完或提前结束时应关闭返回的 Stream
+     *
+     * @param bucketName 桶名
+     * @param prefix     前缀，可为 null
+     * @param ordered    是否按对象名有序返回，无序时吞吐更高
+     * @return 对象摘要
+     */
+    public Stream<ObjectSummary> listObjectsParallel(String bucketName, String prefix, boolean ordered) {
+        List<ParallelLister.ListingSource> sources = new ArrayList<>();
+        for (ShardRouter.Shard shard : shardRouter.all()) {
+            sources.add(new ParallelLister.ListingSource() {
+                @Override
+                public ParallelLister.DelimitedPage listDelimited(String prefix, String token) throws Exception {
+                    ListBucketResultV2 result = shard.getClient().listObjectsPage(bucketName, null, prefix,
+                            ParallelLister.DELIMITER, token, PagedLister.MAX_PAGE_SIZE).result();
+                    List<String> prefixes = new ArrayList<>(result.commonPrefixes().size());
+                    for (Prefix commonPrefix : result.commonPrefixes()) {
+                        prefixes.add(commonPrefix.toItem().objectName());
+                    }
+                    return new ParallelLister.DelimitedPage(summaries(result), prefixes,
+                            result.isTruncated() ? result.nextContinuationToken() : null);
+                }
+
+                @Override
+                public PagedLister.Page<ObjectSummary> list(String prefix, String token) throws Exception {
+                    return listPage(shard, bucketName, prefix, token, PagedLister.MAX_PAGE_SIZE);
+                }
+            });
+        }
+        return parallelLister.list(sources, prefix, ordered);
+    }
+
+    /**
+     * 按全量并行扫描重建桶的对象清单索引，扫描期间的写入仍会记入索引
+     *
+     * @param bucketName 桶名
+     * @return 桶内对象数量
+     */
+    public long rebuildInventory(String bucketName) {
+        if (inventory == null) {
+            throw new IllegalStateException("oss.inventory-dir is not configured");
+        }
+        return inventory.rebuild(bucketName, listObjectsParallel(bucketName, null, true));
+    }
+
+    /**
+     * 写入后更新对象清单索引，大小未知时查询对象
+     */
+    private void indexObject(String bucketName, ObjectSummary object) {
+        if (inventory == null) {
+            return;
+        }
+        if (object.getSize() < 0) {
+            StatObjectResponse stat = statObject(bucketName, object.getKey());
+            if (stat == null) {
+                return;
+            }
+            object = new ObjectSummary(object.getKey(), stat.size(), stat.etag(), stat.lastModified().toInstant().toEpochMilli());
+        }
+        inventory.put(bucketName, object);
+    }
+
+    /**
+     * 递归列举一页
+     */
+    private PagedLister.Page<ObjectSummary> listPage(ShardRouter.Shard shard, String bucketName, String prefix, String token, int maxKeys) throws Exception {
+        ListBucketResultV2 result = shard.getClient().listObjectsPage(bucketName, null, prefix, null, token, maxKeys).result();
+        return new PagedLister.Page<>(summaries(result), result.isTruncated() ? result.nextContinuationToken() : null);
+    }
+
+    private static List<ObjectSummary> summaries(ListBucketResultV2 result) {
+        List<ObjectSummary> items = new ArrayList<>(result.contents().size());
+        for (Item item : result.contents()) {
+            if (!item.isDir()) {
+                items.add(new ObjectSummary(item.objectName(), item.size(), item.etag(),
+                        item.lastModified() == null ? 0 : item.lastModified().toInstant().toEpochMilli()));
+            }
+        }
+        return items;
     }
 
 	/**
@@ -201,7 +570,7 @@ public class MinioTemplate {
         policy.addStartsWithCondition("Content-Type", "image/");
         // 设置上传文件的大小 64kiB to 10MiB.
         policy.addContentLengthRangeCondition(64 * 1024, 10 * 1024 * 1024);
-        return minioClient.getPresignedPostFormData(policy);
+        return shardRouter.route(fileName).getClient().getPresignedPostFormData(policy);
     }
 
     /**
@@ -210,22 +579,22 @@ public class MinioTemplate {
      * @param objectName 文件全路径名称
      * @return /
      */
-    @SneakyThrows
     public String getUploadObjectUrl(String objectName) {
-        // 上传文件时携带content-type头即可
-        HashMultimap<String, String> headers = HashMultimap.create();
-        headers.put("Content-Type", "application/octet-stream");
-        return minioClient.getPresignedObjectUrl(
-                GetPresignedObjectUrlArgs.builder()
-                        .method(Method.PUT)
-                        .bucket(ossProperties.getDefaultBucketName())
-                        .object(objectName)
-                        .expiry(1, TimeUnit.DAYS)
-                        .extraHeaders(headers)
-                        .build()
-        );
+        // 上传文件时携带content-type头即可，content-type 不参与签名
+        return shardRouter.route(objectName).getPresigner().presign(Method.PUT, ossProperties.getDefaultBucketName(), objectName, (int) TimeUnit.DAYS.toSeconds(1), null);
     }
 
+    /**
+     * 根据文件大小和客户端带宽计算分片方案
+     *
+     * @param fileSize  文件大小
+     * @param bandwidth 客户端上行带宽（字节/秒），可为 null
+     * @return 分片方案
+     * @throws IllegalArgumentException 文件大小为负或超过 5TiB
+     */
+    public MultipartPlan planMultipart(long fileSize, Long bandwidth) {
+        return MultipartPlan.of(fileSize, bandwidth, ossProperties);
+    }
 
     /**
      *  初始化分片上传
@@ -237,41 +606,160 @@ public class MinioTemplate {
      */
     @SneakyThrows
     public Map<String, Object> initMultiPartUpload(String objectName, int partCount, String contentType) {
+        return initMultiPartUpload(objectName, partCount, contentType, null);
+    }
+
+    /**
+     *  初始化分片上传，提供分片摘要时已存在的分片无需上传，其余分片的地址签入 Content-MD5
+     *
+     * @param objectName 文件全路径名称
+     * @param partCount 分片数量
+     * @param contentType 类型，如果类型使用默认流会导致无法预览
+     * @param partMd5s 分片 md5（hex），下标 0 对应分片 1，可为 null
+     * @return /
+     * @throws IllegalArgumentException 分片 md5 数量与分片数量不一致或格式错误
+     */
+    @SneakyThrows
+    public Map<String, Object> initMultiPartUpload(String objectName, int partCount, String contentType, List<String> partMd5s) {
+        // 在创建 MinIO 上传与会话之前校验，否则校验失败时上传已创建，无人清理
+        validatePartMd5s(partCount, partMd5s);
         JSONObject result = new JSONObject(true);
         if (StrUtil.isBlank(contentType)) {
             contentType = "application/octet-stream";
         }
         HashMultimap<String, String> headers = HashMultimap.create();
         headers.put("Content-Type", contentType);
-        String uploadId = minioClient.initMultiPartUpload(ossProperties.getDefaultBucketName(), null, objectName, headers, null);
+        ShardRouter.Shard shard = shardRouter.route(objectName);
+        String uploadId = shard.getClient().initMultiPartUpload(ossProperties.getDefaultBucketName(), null, objectName, headers, null);
         result.putOnce("uploadId", uploadId);
 
         //将临时文件夹存储到redis
         String concat = generateOssUuidFileName(objectName);
         result.putOnce("folderId", concat);
-        redisUtil.set(uploadId,concat,60*60*24*7);
+        sessionStore.create(uploadId, objectName, concat, partCount);
+        result.putOnce("partCount", partCount);
+        Set<Integer> copies = Collections.emptySet();
+        if (partMd5s != null && !partMd5s.isEmpty()) {
+            sessionStore.bindPartDigests(uploadId, partMd5s);
+            copies = dedupParts(shard, uploadId, partMd5s);
+            result.putOnce("dedupParts", new ArrayList<>(copies));
+        }
+        // 只预签名第一个窗口的分片地址，后续窗口通过 getPartUploadUrls 按需获取
+        int window = Math.min(partCount, ossProperties.getPresignWindow());
+        result.putOnce("uploadUrls", presignPartUrls(shard, concat, uploadId, 1, window, copies, partMd5s));
+        return result;
+    }
+
+    /**
+     * 校验分片 md5 与分片数量一一对应，且为 32 位 hex
+     *
+     * @param partCount 分片数量
+     * @param partMd5s  分片 md5，可为 null
+     */
+    private static void validatePartMd5s(int partCount, List<String> partMd5s) {
+        if (partMd5s == null || partMd5s.isEmpty()) {
+            return;
+        }
+        if (partMd5s.size() != partCount) {
+            throw new IllegalArgumentException("partMd5s size " + partMd5s.size() + " does not match partCount " + partCount);
+        }
+        for (int i = 0; i < partMd5s.size(); i++) {
+            String md5 = partMd5s.get(i);
+            if (md5 == null || !MD5_HEX.matcher(md5).matches()) {
+                throw new IllegalArgumentException("invalid md5 of part " + (i + 1) + ": " + md5);
+            }
+        }
+    }
+
+    /**
+     * 查询分片摘要索引，命中的分片记入会话，合并时从已有对象复制；
+     * UploadPartCopy 不能跨集群，只复用同一分片上的数据
+     *
+     * @param shard    上传所在分片
+     * @param uploadId 上传标识
+     * @param partMd5s 分片 md5
+     * @return 无需上传的分片序号
+     */
+    private Set<Integer> dedupParts(ShardRouter.Shard shard, String uploadId, List<String> partMd5s) {
+        List<ChunkIndex.ChunkRef> refs = chunkIndex.getAll(partMd5s);
+        Map<Integer, ChunkIndex.ChunkRef> copies = new TreeMap<>();
+        for (int i = 0; i < refs.size(); i++) {
+            if (refs.get(i) != null && shardRouter.route(refs.get(i).getObjectName()) == shard) {
+                copies.put(i + 1, refs.get(i));
+            }
+        }
+        sessionStore.markCopies(uploadId, copies);
+        return copies.keySet();
+    }
+
+    /**
+     * 按需获取指定区间的分片上传地址
+     *
+     * @param uploadId 上传标识
+     * @param from     起始分片序号，从1开始
+     * @param to       结束分片序号（包含）
+     * @return 分片地址列表，会话不存在时返回 null
+     */
+    public JSONArray getPartUploadUrls(String uploadId, int from, int to) {
+        MultipartSessionStore.Session session = sessionStore.get(uploadId);
+        if (session == null) {
+            return null;
+        }
+        from = Math.max(from, 1);
+        to = Math.min(Math.min(to, session.getPartCount()), from + ossProperties.getPresignWindow() - 1);
+        return presignPartUrls(shardRouter.route(session.getObjectName()), session.getFolderId(), uploadId, from, to, session.getCopies().keySet(), session.getPartMd5s());
+    }
+
+    /**
+     * 预签名区间内的分片上传地址
+     *
+     * @param shard      上传所在分片
+     * @param objectName 分片对象名
+     * @param uploadId   上传标识
+     * @param from       起始分片序号
+     * @param to         结束分片序号（包含）
+     * @param skip       无需上传的分片序号
+     * @param partMd5s   分片 md5（hex），提供时签入 Content-MD5 请求头，可为 null
+     * @return 分片地址列表，签入 Content-MD5 时一并返回上传需要携带的值
+     */
+    private JSONArray presignPartUrls(ShardRouter.Shard shard, String objectName, String uploadId, int from, int to, Set<Integer> skip, List<String> partMd5s) {
+        List<Integer> partNumbers = new ArrayList<>();
+        List<String> contentMd5s = new ArrayList<>();
+        for (int i = from; i <= to; i++) {
+            if (!skip.contains(i)) {
+                partNumbers.add(i);
+                contentMd5s.add(contentMd5(partMd5s, i));
+            }
+        }
         JSONArray partList = new JSONArray();
-        //请求参数
-        Map<String, String> reqParams = new HashMap<>();
-        //reqParams.put("response-content-type", "application/json");
-        reqParams.put("uploadId", uploadId);
-        for (int i = 1; i <= partCount; i++) {
+        List<String> uploadUrls = shard.getPresigner().presignParts(ossProperties.getDefaultBucketName(), objectName, uploadId, partNumbers, contentMd5s, (int) TimeUnit.DAYS.toSeconds(1));
+        for (int i = 0; i < partNumbers.size(); i++) {
             JSONObject uploadInfo = new JSONObject(true);
-            reqParams.put("partNumber", String.valueOf(i));
-            String uploadUrl = minioClient.getPresignedObjectUrl(
-                    GetPresignedObjectUrlArgs.builder()
-                            .method(Method.PUT)
-                            .bucket(ossProperties.getDefaultBucketName())
-                            .object(concat)
-                            .expiry(1, TimeUnit.DAYS)
-                            .extraQueryParams(reqParams)
-                            .build());
-            uploadInfo.putOnce("part",i);
-            uploadInfo.putOnce("uploadUrl",uploadUrl);
+            uploadInfo.putOnce("part",partNumbers.get(i));
+            uploadInfo.putOnce("uploadUrl",uploadUrls.get(i));
+            uploadInfo.putOnce("contentMd5",contentMd5s.get(i));
             partList.add(uploadInfo);
         }
-        result.putOnce("uploadUrls", partList);
-        return result;
+        return partList;
+    }
+
+    /**
+     * 分片 md5 转为 Content-MD5 请求头的值（base64）
+     *
+     * @param partMd5s   分片 md5（hex），可为 null
+     * @param partNumber 分片序号
+     * @return 未提供时返回 null
+     */
+    private static String contentMd5(List<String> partMd5s, int partNumber) {
+        String md5 = partMd5(partMd5s, partNumber);
+        return md5 == null ? null : Base64.getEncoder().encodeToString(HexUtil.decodeHex(md5));
+    }
+
+    private static String partMd5(List<String> partMd5s, int partNumber) {
+        if (partMd5s == null || partNumber > partMd5s.size() || StrUtil.isBlank(partMd5s.get(partNumber - 1))) {
+            return null;
+        }
+        return partMd5s.get(partNumber - 1).toLowerCase();
     }
 
     /**
@@ -282,16 +770,69 @@ public class MinioTemplate {
      * @return /
      */
     public boolean mergeMultipartUpload(String objectName, String uploadId) {
+        return mergeMultipartUpload(objectName, uploadId, null);
+    }
+
+    /**
+     * 分片上传完后合并
+     * <p>
+     * 客户端提供各分片 PUT 返回的 ETag 时，校验后直接合并，省去一次 listParts；未提供时从 MinIO 查询已上传分片。
+     *
+     * @param objectName 文件全路径名称
+     * @param uploadId 返回的uploadId
+     * @param partEtags 分片序号 -> ETag，可为 null
+     * @return /
+     */
+    public boolean mergeMultipartUpload(String objectName, String uploadId, Map<Integer, String> partEtags) {
+        String bucketName = ossProperties.getDefaultBucketName();
+        ShardRouter.Shard shard = shardRouter.route(objectName);
+        CustomMinioClient minioClient = shard.getClient();
         try {
-            //TODO::目前仅做了最大1000分片
-            Part[] parts = new Part[1000];
-            ListPartsResponse partResult = minioClient.listMultipart(ossProperties.getDefaultBucketName(), null, objectName, 1000, 0, uploadId, null, null);
-            int partNumber = 1;
-            for (Part part : partResult.result().partList()) {
-                parts[partNumber - 1] = new Part(partNumber, part.etag());
-                partNumber++;
+            MultipartSessionStore.Session session = sessionStore.get(uploadId);
+            if (session != null && !copyDedupParts(minioClient, bucketName, objectName, session)) {
+                return false;
+            }
+            List<Part> uploaded;
+            SortedMap<Integer, Long> partSizes = new TreeMap<>();
+            if (partEtags == null) {
+                uploaded = listAllParts(bucketName, objectName, uploadId);
+                // 与 resolveParts 一致，分片未传完时不合并，客户端通过 listMissingParts 补传后再次合并
+                if (session != null && (uploaded.size() != session.getPartCount()
+                        || uploaded.stream().anyMatch(part -> part.partNumber() > session.getPartCount()))) {
+                    log.warn("分片列表不完整: {} {}/{}", objectName, uploaded.size(), session.getPartCount());
+                    return false;
+                }
+                uploaded.forEach(part -> partSizes.put(part.partNumber(), part.partSize()));
+            } else {
+                // 会话中的分片大小由客户端回调上报，不可信，合并后的大小以服务端为准，也不据此登记分片索引
+                uploaded = resolveParts(session, partEtags);
+                if (uploaded == null) {
+                    return false;
+                }
+            }
+            if (session != null && !verifyParts(session, uploaded)) {
+                return false;
+            }
+            Part[] parts = new Part[uploaded.size()];
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = new Part(uploaded.get(i).partNumber(), uploaded.get(i).etag());
             }
-            minioClient.mergeMultipartUpload(ossProperties.getDefaultBucketName(), null, objectName, uploadId, parts, null, null);
+            ObjectWriteResponse response = minioClient.mergeMultipartUpload(bucketName, null, objectName, uploadId, parts, null, null);
+            metadataCache.invalidateObject(shard.getName(), bucketName, objectName);
+            presignedUrlCache.invalidate(Method.GET, bucketName, objectName);
+            if (inventory != null) {
+                long size = partSizes.size() == parts.length ? partSizes.values().stream().mapToLong(Long::longValue).sum() : statSize(minioClient, bucketName, objectName);
+                indexObject(bucketName, new ObjectSummary(objectName, size, response.etag(), System.currentTimeMillis()));
+            }
+            if (session != null && session.getMd5() != null && session.getFileSize() != null) {
+                // 前端声明的 md5 未经校验，由服务端读取合并后的对象核对后再登记
+                contentHashIndex.verifyAndPut(session.getMd5(), session.getFileSize(), objectName,
+                        () -> minioClient.getObject(GetObjectArgs.builder().bucket(bucketName).object(objectName).build()));
+            }
+            if (session != null && session.getPartMd5s() != null) {
+                indexChunks(objectName, session.getPartMd5s(), partSizes, uploaded.size());
+            }
+            sessionStore.remove(uploadId);
         } catch (Exception e) {
             e.printStackTrace();
             return false;
@@ -300,6 +841,176 @@ public class MinioTemplate {
         return true;
     }
 
+    /**
+     * 查询对象大小
+     *
+     * @return 查询失败时返回 -1
+     */
+    private long statSize(CustomMinioClient minioClient, String bucketName, String objectName) {
+        try {
+            return minioClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(objectName).build()).size();
+        } catch (Exception e) {
+            log.warn("查询对象大小失败: {}", objectName, e);
+            return -1;
+        }
+    }
+
+    /**
+     * 把去重命中的分片从已有对象复制到本次上传
+     * <p>
+     * 源数据失效或复制结果与摘要不一致时删除对应索引并取消复制标记，返回 false，客户端重新获取该分片的上传地址上传后再次合并即可。
+     *
+     * @param minioClient 上传所在分片的客户端
+     * @param bucketName 桶名
+     * @param objectName 文件全路径名称
+     * @param session    上传会话
+     * @return 是否全部复制成功
+     */
+    private boolean copyDedupParts(CustomMinioClient minioClient, String bucketName, String objectName, MultipartSessionStore.Session session) {
+        boolean success = true;
+        for (Map.Entry<Integer, ChunkIndex.ChunkRef> entry : session.getCopies().entrySet()) {
+            int partNumber = entry.getKey();
+            ChunkIndex.ChunkRef ref = entry.getValue();
+            try {
+                String etag = minioClient.copyPart(bucketName, null, objectName, session.getUploadId(), partNumber,
+                        bucketName, ref.getObjectName(), ref.getOffset(), ref.getLength());
+                // 复制标记在下方取消，之后的合并不再知道该分片来自复制，在这里就校验，避免索引指向错误数据
+                if (!StrUtil.strip(etag, "\"").equalsIgnoreCase(ref.getMd5())) {
+                    log.warn("分片复制结果与摘要不一致: {} part {} <- {}, etag {}", objectName, partNumber, ref.getObjectName(), etag);
+                    chunkIndex.remove(ref.getMd5());
+                    sessionStore.unmarkCopy(session.getUploadId(), partNumber);
+                    success = false;
+                    continue;
+                }
+                sessionStore.markUploaded(session.getUploadId(), partNumber, ref.getLength(), etag);
+                session.getParts().put(partNumber, new MultipartSessionStore.PartState(ref.getLength(), etag));
+            } catch (Exception e) {
+                log.warn("分片复制失败: {} part {} <- {}", objectName, partNumber, ref.getObjectName(), e);
+                chunkIndex.remove(ref.getMd5());
+                success = false;
+            }
+            sessionStore.unmarkCopy(session.getUploadId(), partNumber);
+        }
+        return success;
+    }
+
+    /**
+     * 校验客户端提交的分片列表
+     * <p>
+     * 有会话时，分片序号需在 [1, partCount] 内，与已记录的 ETag 一致，且连同会话中已记录的分片覆盖全部分片。
+     *
+     * @param session   上传会话，可为 null
+     * @param partEtags 分片序号 -> ETag
+     * @return 按分片序号排序的分片列表，校验不通过返回 null
+     */
+    private List<Part> resolveParts(MultipartSessionStore.Session session, Map<Integer, String> partEtags) {
+        SortedMap<Integer, String> etags = new TreeMap<>(partEtags);
+        if (session != null) {
+            // 去重复制的分片客户端没有上传过，ETag 取会话中记录的复制结果；复制标记在首次合并时已取消，
+            // 因此不区分来源，客户端未提交的分片都从会话补全
+            session.getParts().forEach((partNumber, state) -> {
+                if (state.getEtag() != null) {
+                    etags.putIfAbsent(partNumber, state.getEtag());
+                }
+            });
+        }
+        List<Part> parts = new ArrayList<>(etags.size());
+        for (Map.Entry<Integer, String> entry : etags.entrySet()) {
+            int partNumber = entry.getKey();
+            String etag = StrUtil.strip(entry.getValue(), "\"");
+            if (StrUtil.isBlank(etag) || partNumber < 1 || partNumber > MAX_PARTS) {
+                log.warn("分片列表无效: part {}, etag {}", partNumber, etag);
+                return null;
+            }
+            if (session != null) {
+                MultipartSessionStore.PartState state = session.getParts().get(partNumber);
+                if (partNumber > session.getPartCount()
+                        || (state != null && state.getEtag() != null && !StrUtil.strip(state.getEtag(), "\"").equalsIgnoreCase(etag))) {
+                    log.warn("分片列表与会话不一致: {} part {}, etag {}", session.getObjectName(), partNumber, etag);
+                    return null;
+                }
+            }
+            parts.add(new Part(partNumber, etag));
+        }
+        if (session != null && parts.size() != session.getPartCount()) {
+            log.warn("分片列表不完整: {} {}/{}", session.getObjectName(), parts.size(), session.getPartCount());
+            return null;
+        }
+        return parts;
+    }
+
+    /**
+     * 校验分片 ETag 与初始化时登记的 md5 是否一致
+     * <p>
+     * 不一致的分片从会话中移除，客户端通过 listMissingParts 得到这些分片，重新上传后再次合并即可，
+     * 不需要整个文件重传。去重复制的分片不一致时，说明分片索引指向的数据已变化，一并删除索引。
+     *
+     * @param session  上传会话
+     * @param uploaded 已上传的分片
+     * @return 是否全部一致
+     */
+    private boolean verifyParts(MultipartSessionStore.Session session, List<Part> uploaded) {
+        boolean success = true;
+        for (Part part : uploaded) {
+            String md5 = partMd5(session.getPartMd5s(), part.partNumber());
+            String etag = StrUtil.strip(part.etag(), "\"").toLowerCase();
+            if (md5 != null && !md5.equals(etag)) {
+                log.warn("分片校验失败: {} part {}, md5 {}, etag {}", session.getObjectName(), part.partNumber(), md5, etag);
+                sessionStore.unmarkUploaded(session.getUploadId(), part.partNumber());
+                ChunkIndex.ChunkRef ref = session.getCopies().get(part.partNumber());
+                if (ref != null) {
+                    chunkIndex.remove(ref.getMd5());
+                }
+                success = false;
+            }
+        }
+        return success;
+    }
+
+    /**
+     * 合并成功后按最终对象中的字节区间登记分片摘要，分片大小不全时无法计算偏移，不登记
+     *
+     * @param objectName 文件全路径名称
+     * @param partMd5s   分片 md5，下标 0 对应分片 1
+     * @param partSizes  分片序号 -> 分片大小
+     * @param partCount  已合并的分片数
+     */
+    private void indexChunks(String objectName, List<String> partMd5s, SortedMap<Integer, Long> partSizes, int partCount) {
+        if (partSizes.size() != partCount || partSizes.containsValue(0L)) {
+            log.info("分片大小不全，跳过分片索引: {}", objectName);
+            return;
+        }
+        long offset = 0;
+        for (Map.Entry<Integer, Long> entry : partSizes.entrySet()) {
+            int index = entry.getKey() - 1;
+            if (index < partMd5s.size() && partMd5s.get(index) != null) {
+                chunkIndex.put(partMd5s.get(index), new ChunkIndex.ChunkRef(partMd5s.get(index), objectName, offset, entry.getValue()));
+            }
+            offset += entry.getValue();
+        }
+    }
+
+    /**
+     * 分页查询已上传的全部分片，最多 {@link #MAX_PARTS} 个
+     *
+     * @param bucketName 桶名
+     * @param objectName 文件全路径名称
+     * @param uploadId   上传标识
+     * @return 按分片序号排序的分片列表，包含分片大小
+     */
+    @SneakyThrows
+    private List<Part> listAllParts(String bucketName, String objectName, String uploadId) {
+        List<Part> parts = new ArrayList<>();
+        int partNumberMarker = 0;
+        ListPartsResult partResult;
+        do {
+            partResult = shardRouter.route(objectName).getClient().listMultipart(bucketName, null, objectName, LIST_PARTS_PAGE_SIZE, partNumberMarker, uploadId, null, null).result();
+            parts.addAll(partResult.partList());
+            partNumberMarker = partResult.nextPartNumberMarker();
+        } while (partResult.isTruncated() && parts.size() < MAX_PARTS);
+        return parts;
+    }
+
     /**
      * 初始化分片信息后，获取对应的分片地址信息
      * @param folderId
@@ -315,19 +1026,112 @@ public class MinioTemplate {
         return null;
     }
 
+    /**
+     * 根据文件摘要查找已存在的对象，索引失效时顺带清理
+     *
+     * @param md5      文件 md5
+     * @param fileSize 文件大小
+     * @return 对象名，不存在时返回 null
+     */
+    public String findByContentHash(String md5, long fileSize) {
+        String objectName = contentHashIndex.get(md5, fileSize);
+        if (objectName == null) {
+            return null;
+        }
+        try {
+            StatObjectResponse stat = shardRouter.route(objectName).getClient().statObject(
+                    StatObjectArgs.builder().bucket(ossProperties.getDefaultBucketName()).object(objectName).build());
+            if (stat.size() == fileSize) {
+                return objectName;
+            }
+        } catch (Exception e) {
+            log.info("秒传索引已失效: {}", objectName);
+        }
+        contentHashIndex.remove(md5, fileSize);
+        return null;
+    }
+
+    /**
+     * 分片上传会话绑定文件摘要，合并成功后校验对象内容与摘要一致再登记秒传索引
+     *
+     * @param uploadId 上传标识
+     * @param md5      文件 md5
+     * @param fileSize 文件大小
+     * @return 会话不存在时返回 false
+     */
+    public boolean bindContentHash(String uploadId, String md5, long fileSize) {
+        return sessionStore.bindDigest(uploadId, md5, fileSize);
+    }
+
+    /**
+     * 默认桶内复制对象，同一分片内由服务端复制，不经过本服务传输数据；跨分片时经本服务流式转存
+     *
+     * @param sourceObjectName 源对象名
+     * @param objectName       目标对象名
+     */
+    @SneakyThrows
+    public void copyObject(String sourceObjectName, String objectName) {
+        String bucketName = ossProperties.getDefaultBucketName();
+        ShardRouter.Shard source = shardRouter.route(sourceObjectName);
+        ShardRouter.Shard target = shardRouter.route(objectName);
+        if (source == target) {
+            target.getClient().copyObject(CopyObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .source(CopySource.builder().bucket(bucketName).object(sourceObjectName).build())
+                    .build());
+            metadataCache.invalidateObject(target.getName(), bucketName, objectName);
+            presignedUrlCache.invalidate(Method.GET, bucketName, objectName);
+            if (inventory != null) {
+                indexObject(bucketName, new ObjectSummary(objectName, -1, null, System.currentTimeMillis()));
+            }
+            return;
+        }
+        StatObjectResponse stat = source.getClient().statObject(
+                StatObjectArgs.builder().bucket(bucketName).object(sourceObjectName).build());
+        HashMultimap<String, String> headers = HashMultimap.create();
+        headers.put("Content-Type", stat.contentType());
+        ObjectSummary uploaded;
+        try (InputStream inputStream = source.getClient().getObject(
+                GetObjectArgs.builder().bucket(bucketName).object(sourceObjectName).build())) {
+            uploaded = partUploader.upload(target.getClient(), bucketName, objectName, inputStream, headers);
+        }
+        metadataCache.invalidateObject(target.getName(), bucketName, objectName);
+        presignedUrlCache.invalidate(Method.GET, bucketName, objectName);
+        indexObject(bucketName, uploaded);
+    }
+
+    /**
+     * 记录分片上传完成，由前端直传 MinIO 成功后回调
+     *
+     * @param uploadId   上传标识
+     * @param partNumber 分片序号
+     * @param size       分片大小
+     * @param etag       MinIO 返回的 ETag
+     * @return 会话不存在时返回 false
+     */
+    public boolean markPartUploaded(String uploadId, int partNumber, long size, String etag) {
+        return sessionStore.markUploaded(uploadId, partNumber, size, etag);
+    }
+
     /**
      * 获取分片上传已经上传的索引列表
      * @param uploadId
      * @return
      */
-
     public List<Integer> listIncompleteUploads(String uploadId) {
-        List<Integer> list=new ArrayList<>();
-        if(redisUtil.hasKey(uploadId)){
-            String concat= (String) redisUtil.get(uploadId);
-            list  = listIncompleteUploads(ossProperties.getDefaultBucketName(), concat);
-        }
-        return list;
+        MultipartSessionStore.Session session = sessionStore.get(uploadId);
+        return session == null ? new ArrayList<>() : session.uploadedParts();
+    }
+
+    /**
+     * 获取分片上传尚未上传的索引列表
+     * @param uploadId
+     * @return
+     */
+    public List<Integer> listMissingParts(String uploadId) {
+        MultipartSessionStore.Session session = sessionStore.get(uploadId);
+        return session == null ? new ArrayList<>() : session.missingParts();
     }
 
     /**
@@ -338,13 +1142,16 @@ public class MinioTemplate {
     @SneakyThrows
     public List<Integer>  listIncompleteUploads(String bucketName,String prefix){
         List<Integer> rslt=new ArrayList<>();
-        Iterable<Result<Item>> results=minioClient.listObjects(
-                ListObjectsArgs.builder()
-                        .bucket(bucketName)
-                        .prefix(prefix)
-                        .maxKeys(1000)
-                        .build());
-        for (Result<Item> result : results) {
+        List<Iterable<Result<Item>>> shardResults = new ArrayList<>();
+        for (ShardRouter.Shard shard : shardRouter.all()) {
+            shardResults.add(shard.getClient().listObjects(
+                    ListObjectsArgs.builder()
+                            .bucket(bucketName)
+                            .prefix(prefix)
+                            .maxKeys(1000)
+                            .build()));
+        }
+        for (Result<Item> result : Iterables.concat(shardResults)) {
             String obectName = result.get().objectName();
             String[] split = StringUtils.split(obectName, "_");
             assert split != null;
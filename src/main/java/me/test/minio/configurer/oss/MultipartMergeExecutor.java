@@ -0,0 +1,224 @@
+package me.test.minio.configurer.oss;
+
+import cn.hutool.core.util.IdUtil;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import me.test.minio.configurer.redis.RedisUtil;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步合并分片
+ * <p>
+ * 分片很多时合并可能耗时数秒以上，放在有界线程池中执行，请求线程立即返回任务标识；
+ * 任务状态保存在 redis 中，任意节点都可以查询。同一个 uploadId 只会有一个进行中的任务。
+ * <p>
+ * 本节点排队和执行中的任务定期刷新 updateTime；节点宕机后任务停在 PENDING/RUNNING，
+ * 超过 {@link #STALE_TIMEOUT} 未刷新即视为失败，可以重新提交。
+ * <p>
+ * 每次提交生成新的 owner，重新提交和状态写入都以比较并设置的方式进行：只有 redis 中仍是本节点上次写入的记录时才覆盖，
+ * 被判定宕机但仍在运行的节点、并发重新提交中落败的一方都不会覆盖接管者的状态。
+ *
+ * @author test
+ */
+@Slf4j
+public class MultipartMergeExecutor {
+
+    /**
+     * redis key 前缀
+     */
+    private static final String KEY_PREFIX = "oss:multipart:job:";
+
+    /**
+     * 任务状态保留时间，1天
+     */
+    private static final long JOB_TTL = 60 * 60 * 24;
+
+    /**
+     * 进行中的任务超过该时间（毫秒）未刷新视为失败，5分钟
+     */
+    private static final long STALE_TIMEOUT = 5 * 60 * 1000;
+
+    /**
+     * 刷新进行中任务的间隔（毫秒）
+     */
+    private static final long HEARTBEAT_INTERVAL = STALE_TIMEOUT / 5;
+
+    private final MinioTemplate minioTemplate;
+
+    private final RedisUtil redisUtil;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 本节点排队和执行中的任务
+     */
+    private final Map<String, MergeJob> activeJobs = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("oss-merge-heartbeat-%d").setDaemon(true).build());
+
+    public MultipartMergeExecutor(MinioTemplate minioTemplate, RedisUtil redisUtil, OssProperties ossProperties) {
+        this.minioTemplate = minioTemplate;
+        this.redisUtil = redisUtil;
+        this.executor = new ThreadPoolExecutor(ossProperties.getCompleteThreads(), ossProperties.getCompleteThreads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(ossProperties.getCompleteQueueCapacity()),
+                new ThreadFactoryBuilder().setNameFormat("oss-merge-%d").setDaemon(true).build());
+        heartbeat.scheduleWithFixedDelay(this::refreshActiveJobs, HEARTBEAT_INTERVAL, HEARTBEAT_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 提交合并任务，任务标识即 uploadId
+     *
+     * @param objectName 文件全路径名称
+     * @param uploadId   上传标识
+     * @param partEtags  分片序号 -> ETag，可为 null
+     * @return 任务信息，已有未结束的任务或并发提交被其他请求抢先时返回该任务；队列已满时返回 null
+     */
+    public MergeJob submit(String objectName, String uploadId, Map<Integer, String> partEtags) {
+        MergeJob job = new MergeJob(uploadId, objectName, uploadId, Status.PENDING, System.currentTimeMillis(), IdUtil.fastSimpleUUID());
+        if (!redisUtil.setIfAbsent(key(uploadId), job, JOB_TTL)) {
+            MergeJob existing = (MergeJob) redisUtil.get(key(uploadId));
+            if (existing != null && existing.getStatus() != Status.FAILED && !isStale(existing)) {
+                return existing;
+            }
+            // 上次失败（如分片校验不通过）或执行节点已宕机，重新上传分片后允许再次提交；
+            // 只替换读到的那条记录，并发提交只有一个能接管
+            boolean taken = existing == null ? redisUtil.setIfAbsent(key(uploadId), job, JOB_TTL)
+                    : redisUtil.compareAndSet(key(uploadId), existing, job, JOB_TTL);
+            if (!taken) {
+                return get(uploadId);
+            }
+        }
+        activeJobs.put(job.getJobId(), job);
+        try {
+            executor.execute(() -> run(job, partEtags));
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(job.getJobId());
+            redisUtil.del(key(uploadId));
+            return null;
+        }
+        return job;
+    }
+
+    /**
+     * 查询任务
+     *
+     * @param jobId 任务标识
+     * @return 任务信息，不存在时返回 null；进行中的任务长时间未刷新时按失败返回
+     */
+    public MergeJob get(String jobId) {
+        MergeJob job = (MergeJob) redisUtil.get(key(jobId));
+        if (job != null && isStale(job)) {
+            job.setStatus(Status.FAILED);
+        }
+        return job;
+    }
+
+    /**
+     * 容器关闭时不再接收新任务，已提交的任务继续执行
+     */
+    public void shutdown() {
+        executor.shutdown();
+        heartbeat.shutdownNow();
+    }
+
+    private void run(MergeJob job, Map<Integer, String> partEtags) {
+        if (!update(job, Status.RUNNING)) {
+            return;
+        }
+        boolean success = false;
+        try {
+            success = minioTemplate.mergeMultipartUpload(job.getObjectName(), job.getUploadId(), partEtags);
+        } catch (Exception e) {
+            log.error("异步合并分片失败: {} {}", job.getObjectName(), job.getUploadId(), e);
+        } finally {
+            activeJobs.remove(job.getJobId());
+        }
+        update(job, success ? Status.SUCCESS : Status.FAILED);
+    }
+
+    /**
+     * 刷新本节点进行中任务的 updateTime
+     */
+    private void refreshActiveJobs() {
+        for (MergeJob job : activeJobs.values()) {
+            try {
+                synchronized (job) {
+                    if (job.getStatus() == Status.PENDING || job.getStatus() == Status.RUNNING) {
+                        update(job, job.getStatus());
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("刷新合并任务失败: {}", job.getJobId(), e);
+            }
+        }
+    }
+
+    /**
+     * 写入任务状态，redis 中已不是本节点上次写入的记录时放弃写入并停止刷新
+     *
+     * @return false 任务已被其他节点接管
+     */
+    private boolean update(MergeJob job, Status status) {
+        synchronized (job) {
+            MergeJob written = new MergeJob(job.getJobId(), job.getObjectName(), job.getUploadId(),
+                    job.getStatus(), job.getUpdateTime(), job.getOwner());
+            job.setStatus(status);
+            job.setUpdateTime(System.currentTimeMillis());
+            if (redisUtil.compareAndSet(key(job.getJobId()), written, job, JOB_TTL)) {
+                return true;
+            }
+            activeJobs.remove(job.getJobId());
+            log.warn("合并任务已被接管，放弃写入 {}: {}", status, job.getJobId());
+            return false;
+        }
+    }
+
+    private static boolean isStale(MergeJob job) {
+        return (job.getStatus() == Status.PENDING || job.getStatus() == Status.RUNNING)
+                && job.getUpdateTime() + STALE_TIMEOUT < System.currentTimeMillis();
+    }
+
+    private static String key(String jobId) {
+        return KEY_PREFIX + jobId;
+    }
+
+    /**
+     * 任务状态
+     */
+    public enum Status {
+        PENDING, RUNNING, SUCCESS, FAILED
+    }
+
+    /**
+     * 合并任务
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MergeJob {
+        String jobId;
+        String objectName;
+        String uploadId;
+        Status status;
+        /**
+         * 状态更新时间
+         */
+        long updateTime;
+        /**
+         * 提交时生成，用于识别任务记录是否仍属于本次提交
+         */
+        String owner;
+    }
+}
@@ -0,0 +1,81 @@
+package me.test.minio.configurer.oss;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 分片方案，由服务端根据文件大小和客户端带宽计算
+ *
+ * @author test
+ */
+@Data
+@AllArgsConstructor
+public class MultipartPlan {
+
+    /**
+     * S3 分片最小值 5MiB（最后一个分片除外）
+     */
+    public static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    /**
+     * S3 分片最大值 5GiB
+     */
+    public static final long MAX_PART_SIZE = 5L * 1024 * 1024 * 1024;
+
+    /**
+     * S3 单个对象最大 5TiB
+     */
+    public static final long MAX_OBJECT_SIZE = 5L * 1024 * 1024 * 1024 * 1024;
+
+    private static final long MIB = 1024 * 1024;
+
+    /**
+     * 分片大小，最后一个分片可能更小
+     */
+    long partSize;
+
+    /**
+     * 分片数量
+     */
+    int partCount;
+
+    /**
+     * 计算分片方案
+     * <p>
+     * 有带宽提示时，按单个分片约 targetPartSeconds 秒上传完成来定分片大小，否则使用 targetPartSize；
+     * 结果限制在 S3 的 5MiB~5GiB 与 10000 分片范围内，并按 MiB 对齐。
+     *
+     * @param fileSize      文件大小
+     * @param bandwidth     客户端上行带宽（字节/秒），可为 null
+     * @param ossProperties 配置
+     * @return 分片方案
+     * @throws IllegalArgumentException 文件大小为负或超过 5TiB
+     */
+    public static MultipartPlan of(long fileSize, Long bandwidth, OssProperties ossProperties) {
+        if (fileSize < 0 || fileSize > MAX_OBJECT_SIZE) {
+            throw new IllegalArgumentException("fileSize must be between 0 and " + MAX_OBJECT_SIZE + ": " + fileSize);
+        }
+        long minPartSize = Math.max(MIN_PART_SIZE, ossProperties.getMinPartSize());
+        long maxPartSize = Math.min(MAX_PART_SIZE, ossProperties.getMaxPartSize());
+
+        long partSize = ossProperties.getTargetPartSize();
+        if (bandwidth != null && bandwidth > 0) {
+            partSize = bandwidth * ossProperties.getTargetPartSeconds();
+        }
+        partSize = Math.max(minPartSize, Math.min(maxPartSize, partSize));
+        // 分片数不能超过 10000
+        partSize = Math.max(partSize, ceilDiv(fileSize, MinioTemplate.MAX_PARTS));
+        partSize = Math.min(MAX_PART_SIZE, ceilDiv(partSize, MIB) * MIB);
+
+        int partCount = (int) Math.max(1, ceilDiv(fileSize, partSize));
+        // 5TiB 以内按 MiB 对齐后单个分片不超过 525MiB，分片数不会超过上限
+        if (partCount > MinioTemplate.MAX_PARTS) {
+            throw new IllegalStateException("partCount " + partCount + " exceeds " + MinioTemplate.MAX_PARTS + " for fileSize " + fileSize);
+        }
+        return new MultipartPlan(partSize, partCount);
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return (x + y - 1) / y;
+    }
+}
@@ -0,0 +1,317 @@
+package me.test.minio.configurer.oss;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import me.test.minio.configurer.redis.RedisUtil;
+
+import java.util.*;
+
+/**
+ * 分片上传会话存储
+ * <p>
+ * 每个 uploadId 对应 redis 中的一个 hash，保存会话元数据以及每个分片的大小和 ETag，
+ * 断点续传时一次 HGETALL 即可得到已上传/缺失的分片，不需要再去 MinIO 做 listObjects。
+ *
+ * @author test
+ */
+public class MultipartSessionStore {
+
+    /**
+     * redis key 前缀
+     */
+    private static final String KEY_PREFIX = "oss:multipart:session:";
+
+    /**
+     * 过期索引，zset，member 为 uploadId，score 为过期时间戳（毫秒）
+     */
+    private static final String EXPIRY_KEY = "oss:multipart:expiry";
+
+    /**
+     * 分片字段前缀
+     */
+    private static final String PART_PREFIX = "part:";
+
+    private static final String OBJECT_NAME = "objectName";
+
+    private static final String FOLDER_ID = "folderId";
+
+    private static final String PART_COUNT = "partCount";
+
+    private static final String MD5 = "md5";
+
+    private static final String FILE_SIZE = "fileSize";
+
+    private static final String PART_MD5S = "partMd5s";
+
+    /**
+     * 去重分片字段前缀
+     */
+    private static final String COPY_PREFIX = "copy:";
+
+    /**
+     * 会话有效期，7天
+     */
+    public static final long SESSION_TTL = 60 * 60 * 24 * 7;
+
+    private final RedisUtil redisUtil;
+
+    public MultipartSessionStore(RedisUtil redisUtil) {
+        this.redisUtil = redisUtil;
+    }
+
+    /**
+     * 创建上传会话
+     *
+     * @param uploadId   上传标识
+     * @param objectName 文件全路径名称
+     * @param folderId   分片临时目录
+     * @param partCount  分片数量
+     * @return 是否成功
+     */
+    public boolean create(String uploadId, String objectName, String folderId, int partCount) {
+        Map<String, Object> session = new HashMap<>(4);
+        session.put(OBJECT_NAME, objectName);
+        session.put(FOLDER_ID, folderId);
+        session.put(PART_COUNT, partCount);
+        redisUtil.zadd(EXPIRY_KEY, uploadId, System.currentTimeMillis() + SESSION_TTL * 1000);
+        return redisUtil.hmset(key(uploadId), session, SESSION_TTL);
+    }
+
+    /**
+     * 会话是否存在
+     *
+     * @param uploadId 上传标识
+     * @return 是否存在
+     */
+    public boolean exists(String uploadId) {
+        return redisUtil.hasKey(key(uploadId));
+    }
+
+    /**
+     * 记录文件摘要，合并成功后用于登记秒传索引
+     *
+     * @param uploadId 上传标识
+     * @param md5      文件 md5
+     * @param fileSize 文件大小
+     * @return 会话不存在时返回 false
+     */
+    public boolean bindDigest(String uploadId, String md5, long fileSize) {
+        if (!exists(uploadId)) {
+            return false;
+        }
+        Map<String, Object> digest = new HashMap<>(2);
+        digest.put(MD5, md5);
+        digest.put(FILE_SIZE, fileSize);
+        return redisUtil.hmset(key(uploadId), digest);
+    }
+
+    /**
+     * 记录每个分片的摘要，合并成功后用于登记分片索引
+     *
+     * @param uploadId 上传标识
+     * @param partMd5s 分片 md5，下标 0 对应分片 1
+     * @return 会话不存在时返回 false
+     */
+    public boolean bindPartDigests(String uploadId, List<String> partMd5s) {
+        if (!exists(uploadId)) {
+            return false;
+        }
+        return redisUtil.hset(key(uploadId), PART_MD5S, new ArrayList<>(partMd5s));
+    }
+
+    /**
+     * 记录可从已有对象复制的分片，这些分片无需上传
+     *
+     * @param uploadId 上传标识
+     * @param copies   分片序号 -> 已有数据位置
+     * @return 会话不存在时返回 false
+     */
+    public boolean markCopies(String uploadId, Map<Integer, ChunkIndex.ChunkRef> copies) {
+        if (copies.isEmpty() || !exists(uploadId)) {
+            return false;
+        }
+        Map<String, Object> fields = new HashMap<>(copies.size());
+        copies.forEach((partNumber, ref) -> fields.put(COPY_PREFIX + partNumber, ref));
+        return redisUtil.hmset(key(uploadId), fields);
+    }
+
+    /**
+     * 取消分片复制，源数据失效后该分片需要重新上传
+     *
+     * @param uploadId   上传标识
+     * @param partNumber 分片序号
+     */
+    public void unmarkCopy(String uploadId, int partNumber) {
+        redisUtil.hdel(key(uploadId), COPY_PREFIX + partNumber);
+    }
+
+    /**
+     * 记录某个分片已上传
+     *
+     * @param uploadId   上传标识
+     * @param partNumber 分片序号，从1开始
+     * @param size       分片大小
+     * @param etag       分片 ETag
+     * @return 会话不存在时返回 false
+     */
+    public boolean markUploaded(String uploadId, int partNumber, long size, String etag) {
+        if (!exists(uploadId)) {
+            return false;
+        }
+        return redisUtil.hset(key(uploadId), PART_PREFIX + partNumber, new PartState(size, etag));
+    }
+
+    /**
+     * 取消分片上传记录，分片校验失败后需要重新上传
+     *
+     * @param uploadId   上传标识
+     * @param partNumber 分片序号
+     */
+    public void unmarkUploaded(String uploadId, int partNumber) {
+        redisUtil.hdel(key(uploadId), PART_PREFIX + partNumber);
+    }
+
+    /**
+     * 读取会话，不存在时返回 null
+     *
+     * @param uploadId 上传标识
+     * @return 会话信息
+     */
+    @SuppressWarnings("unchecked")
+    public Session get(String uploadId) {
+        Map<Object, Object> entries = redisUtil.hmget(key(uploadId));
+        if (entries == null || entries.isEmpty()) {
+            return null;
+        }
+        Session session = new Session();
+        session.setUploadId(uploadId);
+        session.setObjectName((String) entries.get(OBJECT_NAME));
+        session.setFolderId((String) entries.get(FOLDER_ID));
+        Object partCount = entries.get(PART_COUNT);
+        session.setPartCount(partCount == null ? 0 : ((Number) partCount).intValue());
+        session.setMd5((String) entries.get(MD5));
+        Object fileSize = entries.get(FILE_SIZE);
+        session.setFileSize(fileSize == null ? null : ((Number) fileSize).longValue());
+        session.setPartMd5s((List<String>) entries.get(PART_MD5S));
+        SortedMap<Integer, PartState> parts = new TreeMap<>();
+        SortedMap<Integer, ChunkIndex.ChunkRef> copies = new TreeMap<>();
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            String field = (String) entry.getKey();
+            if (field.startsWith(PART_PREFIX)) {
+                parts.put(Integer.parseInt(field.substring(PART_PREFIX.length())), (PartState) entry.getValue());
+            } else if (field.startsWith(COPY_PREFIX)) {
+                copies.put(Integer.parseInt(field.substring(COPY_PREFIX.length())), (ChunkIndex.ChunkRef) entry.getValue());
+            }
+        }
+        session.setParts(parts);
+        session.setCopies(copies);
+        return session;
+    }
+
+    /**
+     * 查询会话过期时间
+     *
+     * @param uploadId 上传标识
+     * @return 过期时间戳（毫秒），不在过期索引中时返回 null
+     */
+    public Long expiresAt(String uploadId) {
+        Double score = redisUtil.zscore(EXPIRY_KEY, uploadId);
+        return score == null ? null : score.longValue();
+    }
+
+    /**
+     * 清理过期索引中早于指定时间的条目
+     * <p>
+     * 由 MinIO 生命周期自行过期或在其他地方中止的上传不会经过 {@link #remove}，其索引条目需要定期清理。
+     *
+     * @param before 过期时间戳（毫秒）上限
+     * @return 清理的数量
+     */
+    public long pruneExpiry(long before) {
+        Long removed = redisUtil.zremoveRangeByScore(EXPIRY_KEY, 0, before);
+        return removed == null ? 0 : removed;
+    }
+
+    /**
+     * 删除会话
+     *
+     * @param uploadId 上传标识
+     */
+    public void remove(String uploadId) {
+        redisUtil.del(key(uploadId));
+        redisUtil.zremove(EXPIRY_KEY, uploadId);
+    }
+
+    private static String key(String uploadId) {
+        return KEY_PREFIX + uploadId;
+    }
+
+    /**
+     * 上传会话
+     */
+    @Data
+    public static class Session {
+        String uploadId;
+        String objectName;
+        String folderId;
+        int partCount;
+        /**
+         * 文件 md5，未提供时为 null
+         */
+        String md5;
+        /**
+         * 文件大小，未提供时为 null
+         */
+        Long fileSize;
+        /**
+         * 已上传分片，按分片序号排序
+         */
+        SortedMap<Integer, PartState> parts;
+        /**
+         * 分片 md5，未提供时为 null
+         */
+        List<String> partMd5s;
+        /**
+         * 可从已有对象复制的分片，按分片序号排序
+         */
+        SortedMap<Integer, ChunkIndex.ChunkRef> copies;
+
+        /**
+         * 已上传的分片序号
+         */
+        public List<Integer> uploadedParts() {
+            return new ArrayList<>(parts.keySet());
+        }
+
+        /**
+         * 尚未上传的分片序号，可复制的分片不算在内
+         */
+        public List<Integer> missingParts() {
+            List<Integer> missing = new ArrayList<>();
+            for (int i = 1; i <= partCount; i++) {
+                if (!parts.containsKey(i) && !copies.containsKey(i)) {
+                    missing.add(i);
+                }
+            }
+            return missing;
+        }
+    }
+
+    /**
+     * 分片状态
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PartState {
+        /**
+         * 分片大小
+         */
+        long size;
+        /**
+         * 分片 ETag
+         */
+        String etag;
+    }
+}
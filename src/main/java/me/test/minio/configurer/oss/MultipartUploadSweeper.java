@@ -0,0 +1,213 @@
+package me.test.minio.configurer.oss;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.minio.messages.ListMultipartUploadsResult;
+import io.minio.messages.ListPartsResult;
+import io.minio.messages.Part;
+import io.minio.messages.Upload;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import me.test.minio.configurer.redis.RedisUtil;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 过期分片上传清理
+ * <p>
+ * redis 中的上传会话 7 天后自动过期，但 MinIO 里的分片上传不会随之中止，残留分片既占存储又拖慢 ListMultipartUploads。
+ * 定时分页扫描每个分片集群默认桶中未完成的分片上传，与初始化时写入的过期索引比对：已过期的，
+ * 或不在索引中且发起时间早于会话有效期的，按批并发中止，整体速率受 sweepRate 限制。
+ * <p>
+ * 多节点部署时通过 redis 锁保证每个清理周期只有一个节点执行，锁在一个周期后自动过期，不主动释放。
+ *
+ * @author test
+ */
+@Slf4j
+public class MultipartUploadSweeper {
+
+    /**
+     * ListMultipartUploads 每页数量
+     */
+    private static final int LIST_UPLOADS_PAGE_SIZE = 1000;
+
+    /**
+     * 清理锁
+     */
+    private static final String LOCK_KEY = "oss:multipart:sweep-lock";
+
+    private final RedisUtil redisUtil;
+
+    private final ShardRouter shardRouter;
+
+    private final MultipartSessionStore sessionStore;
+
+    private final OssProperties ossProperties;
+
+    private final ExecutorService executor;
+
+    private final RateLimiter rateLimiter;
+
+    /**
+     * 累计中止的分片上传数量
+     */
+    private final AtomicLong abortedUploads = new AtomicLong();
+
+    /**
+     * 累计回收的字节数
+     */
+    private final AtomicLong reclaimedBytes = new AtomicLong();
+
+    /**
+     * 累计中止失败的数量
+     */
+    private final AtomicLong failedUploads = new AtomicLong();
+
+    /**
+     * 上次清理完成时间
+     */
+    private volatile long lastSweepTime;
+
+    public MultipartUploadSweeper(RedisUtil redisUtil, ShardRouter shardRouter, MultipartSessionStore sessionStore, OssProperties ossProperties) {
+        this.redisUtil = redisUtil;
+        this.shardRouter = shardRouter;
+        this.sessionStore = sessionStore;
+        this.ossProperties = ossProperties;
+        this.executor = Executors.newFixedThreadPool(ossProperties.getSweepThreads(),
+                new ThreadFactoryBuilder().setNameFormat("oss-sweeper-%d").setDaemon(true).build());
+        this.rateLimiter = RateLimiter.create(ossProperties.getSweepRate());
+    }
+
+    /**
+     * 扫描并中止过期的分片上传
+     */
+    @Scheduled(initialDelayString = "${oss.sweep-interval:3600000}", fixedDelayString = "${oss.sweep-interval:3600000}")
+    public void sweep() {
+        long interval = ossProperties.getSweepInterval();
+        if (!redisUtil.setIfAbsent(LOCK_KEY, ManagementFactory.getRuntimeMXBean().getName(), Math.max(1, interval / 1000))) {
+            log.debug("其他节点正在清理或本周期已清理，跳过");
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long aborted = abortedUploads.get();
+        long reclaimed = reclaimedBytes.get();
+        for (ShardRouter.Shard shard : shardRouter.all()) {
+            try {
+                sweep(shard.getClient(), ossProperties.getDefaultBucketName(), now);
+            } catch (Exception e) {
+                log.error("过期分片上传清理失败: {}", shard.getName(), e);
+            }
+        }
+        // 已过期且留出一个周期的余量仍在索引中的，对应的上传已不在 MinIO 中；即使仍在，也会按发起时间判定过期
+        long pruned = sessionStore.pruneExpiry(now - interval);
+        lastSweepTime = System.currentTimeMillis();
+        log.info("过期分片上传清理完成，中止 {} 个，回收 {} 字节，清理过期索引 {} 条", abortedUploads.get() - aborted, reclaimedBytes.get() - reclaimed, pruned);
+    }
+
+    @SneakyThrows
+    private void sweep(CustomMinioClient minioClient, String bucketName, long now) {
+        List<Upload> batch = new ArrayList<>(ossProperties.getSweepBatchSize());
+        String keyMarker = null;
+        String uploadIdMarker = null;
+        ListMultipartUploadsResult result;
+        do {
+            result = minioClient.listUploads(bucketName, null, keyMarker, uploadIdMarker, LIST_UPLOADS_PAGE_SIZE).result();
+            for (Upload upload : result.uploads()) {
+                if (isExpired(upload, now)) {
+                    batch.add(upload);
+                }
+                if (batch.size() >= ossProperties.getSweepBatchSize()) {
+                    abort(minioClient, bucketName, batch);
+                    batch.clear();
+                }
+            }
+            keyMarker = result.nextKeyMarker();
+            uploadIdMarker = result.nextUploadIdMarker();
+        } while (result.isTruncated());
+        abort(minioClient, bucketName, batch);
+    }
+
+    /**
+     * 清理统计
+     *
+     * @return 累计中止数量、回收字节数、失败数量、上次清理时间
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>(4);
+        stats.put("abortedUploads", abortedUploads.get());
+        stats.put("reclaimedBytes", reclaimedBytes.get());
+        stats.put("failedUploads", failedUploads.get());
+        stats.put("lastSweepTime", lastSweepTime);
+        return stats;
+    }
+
+    /**
+     * 容器关闭时停止清理线程
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private boolean isExpired(Upload upload, long now) {
+        Long expiresAt = sessionStore.expiresAt(upload.uploadId());
+        if (expiresAt != null) {
+            return expiresAt < now;
+        }
+        // 不在索引中的（索引上线前或其他客户端发起的），按发起时间判断
+        return upload.initiated() != null
+                && upload.initiated().toInstant().toEpochMilli() + MultipartSessionStore.SESSION_TTL * 1000 < now;
+    }
+
+    /**
+     * 并发中止一批分片上传，等待整批完成后返回
+     */
+    private void abort(CustomMinioClient minioClient, String bucketName, List<Upload> batch) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            Upload upload = batch.get(i);
+            futures[i] = CompletableFuture.runAsync(() -> abort(minioClient, bucketName, upload), executor);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    private void abort(CustomMinioClient minioClient, String bucketName, Upload upload) {
+        rateLimiter.acquire();
+        try {
+            long size = partSize(minioClient, bucketName, upload);
+            minioClient.abortUpload(bucketName, null, upload.objectName(), upload.uploadId());
+            sessionStore.remove(upload.uploadId());
+            abortedUploads.incrementAndGet();
+            reclaimedBytes.addAndGet(size);
+        } catch (Exception e) {
+            failedUploads.incrementAndGet();
+            log.warn("中止分片上传失败: {} {}", upload.objectName(), upload.uploadId(), e);
+        }
+    }
+
+    /**
+     * 统计已上传分片的总大小
+     */
+    @SneakyThrows
+    private long partSize(CustomMinioClient minioClient, String bucketName, Upload upload) {
+        long size = 0;
+        int partNumberMarker = 0;
+        ListPartsResult partResult;
+        do {
+            partResult = minioClient.listMultipart(bucketName, null, upload.objectName(), LIST_UPLOADS_PAGE_SIZE, partNumberMarker, upload.uploadId(), null, null).result();
+            for (Part part : partResult.partList()) {
+                size += part.partSize();
+            }
+            partNumberMarker = partResult.nextPartNumberMarker();
+        } while (partResult.isTruncated());
+        return size;
+    }
+}
@@ -0,0 +1,735 @@
+package me.test.minio.configurer.oss;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * 本地对象清单索引
+ * <p>
+ * 统计数量、大小或按前缀查找对象时不再请求 LIST。索引由两部分组成：
+ * <ul>
+ * <li>快照 inventory.idx：按 "桶/对象名" 的 UTF-8 字节序（与服务端列举顺序一致，见 {@link ObjectKeyOrder}）排序的全部对象，只读内存映射，二分查找定位前缀；
+ * 每条记录附带此前所有对象大小之和，前缀的数量和总大小只需两次二分查找</li>
+ * <li>日志 inventory.log：快照之后的写入、删除，追加写入，同时保存在内存的有序表中</li>
+ * </ul>
+ * 查询时内存中的变更覆盖快照。日志超过 compactThreshold 条后在后台合并为新快照，合并期间的写入进入新日志。
+ * <p>
+ * 索引只反映经本服务的写入，其他途径的修改通过 {@link #rebuild} 按桶全量扫描重建。
+ *
+ * @author test
+ */
+@Slf4j
+public class ObjectInventory implements Closeable {
+
+    private static final String SNAPSHOT = "inventory.idx";
+
+    private static final String JOURNAL = "inventory.log";
+
+    /**
+     * 合并中的日志，合并完成后删除
+     */
+    private static final String FROZEN_JOURNAL = "inventory.log.old";
+
+    private static final int MAGIC = 0x4F494E56;
+
+    private static final int VERSION = 1;
+
+    /**
+     * magic、version、count、indexPos
+     */
+    private static final int HEADER_SIZE = 24;
+
+    /**
+     * 每条记录的偏移和此前的大小之和
+     */
+    private static final int INDEX_ENTRY_SIZE = 16;
+
+    private static final byte PUT = 1;
+
+    private static final byte DELETE = 2;
+
+    /**
+     * key 顺序，与服务端列举顺序一致，rebuild 的扫描结果可以直接归并
+     */
+    private static final ObjectKeyOrder KEY_ORDER = ObjectKeyOrder.INSTANCE;
+
+    private final File dir;
+
+    private final int compactThreshold;
+
+    /**
+     * 合并与重建互斥
+     */
+    private final ReentrantLock maintenance = new ReentrantLock();
+
+    private final AtomicBoolean compactScheduled = new AtomicBoolean();
+
+    private final ExecutorService compactor;
+
+    /**
+     * 当前日志，写入与切换在 this 上同步
+     */
+    private FileChannel journal;
+
+    /**
+     * 当前日志的记录数
+     */
+    private int journalRecords;
+
+    private volatile State state;
+
+    /**
+     * @param dir              索引目录
+     * @param compactThreshold 日志记录数超过该值时合并为新快照
+     */
+    @SneakyThrows
+    public ObjectInventory(File dir, int compactThreshold) {
+        this.dir = dir;
+        this.compactThreshold = Math.max(1, compactThreshold);
+        Files.createDirectories(dir.toPath());
+        Snapshot snapshot = Snapshot.open(path(SNAPSHOT));
+        ConcurrentSkipListMap<String, Entry> active = new ConcurrentSkipListMap<>(KEY_ORDER);
+        // 上次合并未完成时旧日志仍在，先于当前日志重放
+        journalRecords = replay(path(FROZEN_JOURNAL), active) + replay(path(JOURNAL), active);
+        journal = openJournal();
+        state = new State(snapshot, Collections.emptyNavigableMap(), active);
+        log.info("对象清单索引: {} 快照 {} 个对象，日志 {} 条", dir, snapshot.count, journalRecords);
+        this.compactor = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("oss-inventory-%d").setDaemon(true).build());
+    }
+
+    /**
+     * 记录对象写入
+     *
+     * @param bucketName 桶名
+     * @param object     对象
+     */
+    public void put(String bucketName, ObjectSummary object) {
+        append(PUT, new Entry(key(bucketName, object.getKey()), object.getSize(), object.getLastModified(), object.getEtag(), false));
+    }
+
+    /**
+     * 记录对象删除
+     *
+     * @param bucketName 桶名
+     * @param objectName 对象名
+     */
+    public void remove(String bucketName, String objectName) {
+        append(DELETE, new Entry(key(bucketName, objectName), 0, 0, null, true));
+    }
+
+    /**
+     * 查询单个对象
+     *
+     * @param bucketName 桶名
+     * @param objectName 对象名
+     * @return 对象，不存在时返回 null
+     */
+    public ObjectSummary get(String bucketName, String objectName) {
+        State current = state;
+        String key = key(bucketName, objectName);
+        Entry entry = current.active.get(key);
+        if (entry == null) {
+            entry = current.frozen.get(key);
+        }
+        if (entry == null) {
+            entry = current.snapshot.find(key);
+        }
+        return entry == null || entry.deleted ? null : entry.toSummary(bucketName);
+    }
+
+    /**
+     * 按对象名顺序列出前缀下的对象
+     *
+     * @param bucketName 桶名
+     * @param prefix     前缀，可为 null
+     * @param startAfter 从该对象名之后开始，可为 null
+     * @param limit      最多返回的数量
+     * @return 对象
+     */
+    public List<ObjectSummary> list(String bucketName, String prefix, String startAfter, int limit) {
+        String from = key(bucketName, prefix == null ? "" : prefix);
+        String after = startAfter == null ? null : key(bucketName, startAfter);
+        boolean inclusive = after == null || KEY_ORDER.compare(after, from) < 0;
+        if (!inclusive) {
+            from = after;
+        }
+        List<ObjectSummary> result = new ArrayList<>(Math.min(limit, PagedLister.MAX_PAGE_SIZE));
+        Iterator<Entry> entries = view(state, from, inclusive);
+        String start = key(bucketName, prefix == null ? "" : prefix);
+        while (result.size() < limit && entries.hasNext()) {
+            Entry entry = entries.next();
+            if (!entry.key.startsWith(start)) {
+                break;
+            }
+            if (!entry.deleted) {
+                result.add(entry.toSummary(bucketName));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 统计前缀下的对象数量和总大小，快照部分按前缀和计算，只遍历尚未合并的变更
+     *
+     * @param bucketName 桶名
+     * @param prefix     前缀，可为 null
+     * @return 统计
+     */
+    public Stats stats(String bucketName, String prefix) {
+        State current = state;
+        String start = key(bucketName, prefix == null ? "" : prefix);
+        Snapshot snapshot = current.snapshot;
+        long from = snapshot.lowerBound(start);
+        long to = snapshot.prefixEnd(start, from);
+        long count = to - from;
+        long size = snapshot.cumulativeSize(to) - snapshot.cumulativeSize(from);
+        Iterator<Entry> changes = merge(current.active.tailMap(start, true).values().iterator(),
+                current.frozen.tailMap(start, true).values().iterator());
+        while (changes.hasNext()) {
+            Entry change = changes.next();
+            if (!change.key.startsWith(start)) {
+                break;
+            }
+            Entry existing = snapshot.find(change.key);
+            if (existing != null) {
+                count--;
+                size -= existing.size;
+            }
+            if (!change.deleted) {
+                count++;
+                size += change.size;
+            }
+        }
+        return new Stats(count, size);
+    }
+
+    /**
+     * 用全量扫描结果替换桶的索引，扫描期间的写入以写入为准
+     *
+     * @param bucketName 桶名
+     * @param objects    桶内全部对象，必须按对象名的 UTF-8 字节序（即列举顺序）有序，结束后关闭
+     * @return 桶内对象数量
+     */
+    @SneakyThrows
+    public long rebuild(String bucketName, Stream<ObjectSummary> objects) {
+        maintenance.lock();
+        try (Stream<ObjectSummary> scan = objects) {
+            long begin = System.currentTimeMillis();
+            State current = rotate();
+            String start = key(bucketName, "");
+            // 扫描结果取代快照和已冻结变更中该桶的部分
+            Iterator<Entry> others = Iterators.filter(merge(current.frozen.values().iterator(), current.snapshot.iterator(0)),
+                    entry -> !entry.key.startsWith(start));
+            long[] scanned = new long[1];
+            Iterator<Entry> bucket = Iterators.transform(scan.iterator(), object -> {
+                scanned[0]++;
+                return new Entry(start + object.getKey(), object.getSize(), object.getLastModified(), object.getEtag(), false);
+            });
+            install(merge(bucket, others));
+            log.info("重建对象清单索引: {} 共 {} 个对象，耗时 {} ms", bucketName, scanned[0], System.currentTimeMillis() - begin);
+            return scanned[0];
+        } finally {
+            maintenance.unlock();
+        }
+    }
+
+    /**
+     * 将日志合并为新快照
+     */
+    @SneakyThrows
+    public void compact() {
+        maintenance.lock();
+        try {
+            State current = rotate();
+            install(merge(current.frozen.values().iterator(), current.snapshot.iterator(0)));
+        } finally {
+            maintenance.unlock();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        compactor.shutdownNow();
+        journal.close();
+    }
+
+    @SneakyThrows
+    private void append(byte op, Entry entry) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + entry.key.length());
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(op);
+        entry.write(out);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        boolean full;
+        synchronized (this) {
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            state.active.put(entry.key, entry);
+            full = ++journalRecords >= compactThreshold;
+        }
+        if (full && compactScheduled.compareAndSet(false, true)) {
+            compactor.execute(() -> {
+                try {
+                    // 正在重建时跳过，重建完成后日志已清空
+                    if (maintenance.tryLock()) {
+                        try {
+                            compact();
+                        } finally {
+                            maintenance.unlock();
+                        }
+                    }
+                } catch (Exception e) {
+                    log.warn("合并对象清单索引失败: {}", dir, e);
+                } finally {
+                    compactScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * 冻结当前变更并切换到新日志，之后的写入进入新的内存表
+     */
+    private synchronized State rotate() throws IOException {
+        journal.close();
+        Path current = path(JOURNAL);
+        Path frozen = path(FROZEN_JOURNAL);
+        NavigableMap<String, Entry> frozenEntries;
+        if (Files.exists(frozen)) {
+            // 上次合并失败，旧日志和冻结的变更都还在，与当前的合并
+            try (OutputStream out = Files.newOutputStream(frozen, StandardOpenOption.APPEND)) {
+                Files.copy(current, out);
+            }
+            Files.delete(current);
+            frozenEntries = new TreeMap<>(KEY_ORDER);
+            frozenEntries.putAll(state.frozen);
+            frozenEntries.putAll(state.active);
+        } else {
+            Files.move(current, frozen, StandardCopyOption.ATOMIC_MOVE);
+            frozenEntries = state.active;
+        }
+        journal = openJournal();
+        journalRecords = 0;
+        state = new State(state.snapshot, frozenEntries, new ConcurrentSkipListMap<>(KEY_ORDER));
+        return state;
+    }
+
+    /**
+     * 写出新快照并替换，随后丢弃已合并的变更
+     */
+    private void install(Iterator<Entry> entries) throws IOException {
+        Path target = path(SNAPSHOT);
+        Path tmp = path(SNAPSHOT + ".tmp");
+        Snapshot.write(tmp, entries);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Snapshot snapshot = Snapshot.open(target);
+        Files.deleteIfExists(path(FROZEN_JOURNAL));
+        synchronized (this) {
+            state = new State(snapshot, Collections.emptyNavigableMap(), state.active);
+        }
+    }
+
+    private FileChannel openJournal() throws IOException {
+        return FileChannel.open(path(JOURNAL), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * 重放日志，末尾不完整的记录（进程中途退出）截掉
+     */
+    private static int replay(Path path, NavigableMap<String, Entry> entries) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        int records = 0;
+        long position = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                int op = in.read();
+                if (op == -1) {
+                    break;
+                }
+                Entry entry = Entry.read(in, op == DELETE);
+                entries.put(entry.key, entry);
+                position += 1 + entry.encodedLength();
+                records++;
+            }
+        } catch (EOFException e) {
+            log.warn("对象清单日志末尾不完整，截断到 {} 字节: {}", position, path);
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+                file.setLength(position);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 合并视图，变更覆盖快照
+     */
+    private static Iterator<Entry> view(State current, String from, boolean inclusive) {
+        Snapshot snapshot = current.snapshot;
+        long index = snapshot.lowerBound(from);
+        if (!inclusive && index < snapshot.count && snapshot.key(index).equals(from)) {
+            index++;
+        }
+        return merge(current.active.tailMap(from, inclusive).values().iterator(),
+                merge(current.frozen.tailMap(from, inclusive).values().iterator(), snapshot.iterator(index)));
+    }
+
+    /**
+     * 合并两个按 key 有序的迭代器，key 相同时取 high
+     */
+    private static Iterator<Entry> merge(Iterator<Entry> high, Iterator<Entry> low) {
+        PeekingIterator<Entry> h = Iterators.peekingIterator(high);
+        PeekingIterator<Entry> l = Iterators.peekingIterator(low);
+        return new AbstractIterator<Entry>() {
+            @Override
+            protected Entry computeNext() {
+                if (!h.hasNext()) {
+                    return l.hasNext() ? l.next() : endOfData();
+                }
+                if (!l.hasNext()) {
+                    return h.next();
+                }
+                int c = KEY_ORDER.compare(h.peek().key, l.peek().key);
+                if (c > 0) {
+                    return l.next();
+                }
+                if (c == 0) {
+                    l.next();
+                }
+                return h.next();
+            }
+        };
+    }
+
+    private Path path(String name) {
+        return new File(dir, name).toPath();
+    }
+
+    private static String key(String bucketName, String objectName) {
+        return bucketName + "/" + objectName;
+    }
+
+    /**
+     * 前缀统计
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Stats {
+        long count;
+        long size;
+    }
+
+    /**
+     * 一次查询看到的快照与变更
+     */
+    @AllArgsConstructor
+    private static class State {
+        final Snapshot snapshot;
+        /**
+         * 合并中的变更
+         */
+        final NavigableMap<String, Entry> frozen;
+        /**
+         * 当前日志对应的变更
+         */
+        final ConcurrentNavigableMap<String, Entry> active;
+    }
+
+    /**
+     * 索引记录，deleted 为删除标记
+     */
+    @AllArgsConstructor
+    private static class Entry {
+        final String key;
+        final long size;
+        final long lastModified;
+        final String etag;
+        final boolean deleted;
+
+        ObjectSummary toSummary(String bucketName) {
+            return new ObjectSummary(key.substring(bucketName.length() + 1), size, etag, lastModified);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(keyBytes.length);
+            out.write(keyBytes);
+            out.writeLong(size);
+            out.writeLong(lastModified);
+            if (etag == null) {
+                out.writeShort(-1);
+            } else {
+                byte[] etagBytes = etag.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(etagBytes.length);
+                out.write(etagBytes);
+            }
+        }
+
+        int encodedLength() {
+            return 4 + key.getBytes(StandardCharsets.UTF_8).length + 8 + 8 + 2
+                    + (etag == null ? 0 : etag.getBytes(StandardCharsets.UTF_8).length);
+        }
+
+        static Entry read(DataInputStream in, boolean deleted) throws IOException {
+            byte[] keyBytes = new byte[in.readInt()];
+            in.readFully(keyBytes);
+            long size = in.readLong();
+            long lastModified = in.readLong();
+            short etagLength = in.readShort();
+            String etag = null;
+            if (etagLength >= 0) {
+                byte[] etagBytes = new byte[etagLength];
+                in.readFully(etagBytes);
+                etag = new String(etagBytes, StandardCharsets.UTF_8);
+            }
+            return new Entry(new String(keyBytes, StandardCharsets.UTF_8), size, lastModified, etag, deleted);
+        }
+    }
+
+    /**
+     * 只读快照
+     * <p>
+     * 文件布局：头部（magic、version、count、indexPos），按 key 排序的记录，
+     * 以及 count + 1 个索引项（记录偏移、此前记录的大小之和）。
+     */
+    private static class Snapshot {
+
+        /**
+         * 单个映射区的大小，超过 2GiB 的快照分多段映射
+         */
+        private static final long CHUNK = 1L << 30;
+
+        private static final Snapshot EMPTY = new Snapshot(new MappedByteBuffer[0], 0, 0);
+
+        private final MappedByteBuffer[] chunks;
+
+        final long count;
+
+        private final long indexPos;
+
+        private Snapshot(MappedByteBuffer[] chunks, long count, long indexPos) {
+            this.chunks = chunks;
+            this.count = count;
+            this.indexPos = indexPos;
+        }
+
+        /**
+         * 映射快照文件，不存在或格式不对时返回空快照
+         */
+        static Snapshot open(Path path) throws IOException {
+            if (!Files.exists(path)) {
+                return EMPTY;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long length = channel.size();
+                MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((length + CHUNK - 1) / CHUNK)];
+                for (int i = 0; i < chunks.length; i++) {
+                    long position = i * CHUNK;
+                    chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHUNK, length - position));
+                }
+                Snapshot snapshot = new Snapshot(chunks, 0, 0);
+                if (length < HEADER_SIZE || snapshot.getInt(0) != MAGIC || snapshot.getInt(4) != VERSION) {
+                    log.warn("对象清单快照格式不正确，忽略: {}", path);
+                    return EMPTY;
+                }
+                return new Snapshot(chunks, snapshot.getLong(8), snapshot.getLong(16));
+            }
+        }
+
+        /**
+         * 按顺序写出快照，跳过删除标记
+         */
+        static void write(Path path, Iterator<Entry> entries) throws IOException {
+            Path indexPath = path.resolveSibling(path.getFileName() + ".index");
+            long count = 0;
+            long position = HEADER_SIZE;
+            long totalSize = 0;
+            String previous = null;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path.toFile()), 1 << 16));
+                 DataOutputStream index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexPath.toFile()), 1 << 16))) {
+                out.write(new byte[HEADER_SIZE]);
+                while (entries.hasNext()) {
+                    Entry entry = entries.next();
+                    if (entry.deleted) {
+                        continue;
+                    }
+                    if (previous != null && KEY_ORDER.compare(entry.key, previous) <= 0) {
+                        throw new IllegalStateException("inventory keys out of order: " + previous + " >= " + entry.key);
+                    }
+                    previous = entry.key;
+                    index.writeLong(position);
+                    index.writeLong(totalSize);
+                    entry.write(out);
+                    position += entry.encodedLength();
+                    totalSize += entry.size;
+                    count++;
+                }
+                index.writeLong(position);
+                index.writeLong(totalSize);
+                index.close();
+                Files.copy(indexPath, out);
+            } finally {
+                Files.deleteIfExists(indexPath);
+            }
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+                file.writeInt(MAGIC);
+                file.writeInt(VERSION);
+                file.writeLong(count);
+                file.writeLong(position);
+                file.getFD().sync();
+            }
+        }
+
+        /**
+         * 第一个 key 不小于 key 的位置
+         */
+        long lowerBound(String key) {
+            long low = 0;
+            long high = count;
+            while (low < high) {
+                long mid = (low + high) >>> 1;
+                if (KEY_ORDER.compare(key(mid), key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * from 之后第一个不以 prefix 开头的位置，同一前缀的 key 是连续的
+         */
+        long prefixEnd(String prefix, long from) {
+            long low = from;
+            long high = count;
+            while (low < high) {
+                long mid = (low + high) >>> 1;
+                if (key(mid).startsWith(prefix)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        Entry find(String key) {
+            long index = lowerBound(key);
+            if (index < count && key(index).equals(key)) {
+                return entry(index);
+            }
+            return null;
+        }
+
+        /**
+         * 前 index 条记录的大小之和
+         */
+        long cumulativeSize(long index) {
+            return count == 0 ? 0 : getLong(indexPos + index * INDEX_ENTRY_SIZE + 8);
+        }
+
+        Iterator<Entry> iterator(long from) {
+            return new AbstractIterator<Entry>() {
+                private long index = from;
+
+                @Override
+                protected Entry computeNext() {
+                    return index < count ? entry(index++) : endOfData();
+                }
+            };
+        }
+
+        String key(long index) {
+            long offset = offset(index);
+            return new String(bytes(offset + 4, getInt(offset)), StandardCharsets.UTF_8);
+        }
+
+        @SneakyThrows
+        Entry entry(long index) {
+            long offset = offset(index);
+            int length = (int) (offset(index + 1) - offset);
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes(offset, length)))) {
+                return Entry.read(in, false);
+            }
+        }
+
+        private long offset(long index) {
+            return getLong(indexPos + index * INDEX_ENTRY_SIZE);
+        }
+
+        private int getInt(long position) {
+            int offset = (int) (position % CHUNK);
+            MappedByteBuffer chunk = chunks[(int) (position / CHUNK)];
+            return offset + 4 <= chunk.limit() ? chunk.getInt(offset) : ByteBuffer.wrap(bytes(position, 4)).getInt();
+        }
+
+        private long getLong(long position) {
+            int offset = (int) (position % CHUNK);
+            MappedByteBuffer chunk = chunks[(int) (position / CHUNK)];
+            return offset + 8 <= chunk.limit() ? chunk.getLong(offset) : ByteBuffer.wrap(bytes(position, 8)).getLong();
+        }
+
+        /**
+         * 读取可能跨映射区的字节
+         */
+        private byte[] bytes(long position, int length) {
+            byte[] bytes = new byte[length];
+            int copied = 0;
+            while (copied < length) {
+                ByteBuffer chunk = chunks[(int) ((position + copied) / CHUNK)].duplicate();
+                chunk.position((int) ((position + copied) % CHUNK));
+                int n = Math.min(length - copied, chunk.remaining());
+                chunk.get(bytes, copied, n);
+                copied += n;
+            }
+            return bytes;
+        }
+    }
+}
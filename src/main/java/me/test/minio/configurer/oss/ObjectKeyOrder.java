@@ -0,0 +1,40 @@
+package me.test.minio.configurer.oss;
+
+import java.util.Comparator;
+
+/**
+ * 对象名排序，与 S3/MinIO 列举顺序一致
+ * <p>
+ * 服务端按 UTF-8 字节序返回对象名，String.compareTo 按 UTF-16 代码单元比较，两者在增补字符
+ * （代理对，如 emoji）与 U+E000~U+FFFF 之间顺序相反。UTF-8 字节序即码点顺序，这里按码点比较，不做编码。
+ *
+ * @author test
+ */
+public final class ObjectKeyOrder implements Comparator<String> {
+
+    public static final ObjectKeyOrder INSTANCE = new ObjectKeyOrder();
+
+    private ObjectKeyOrder() {
+    }
+
+    @Override
+    public int compare(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            char x = a.charAt(i);
+            char y = b.charAt(i);
+            if (x != y) {
+                // 两边都不小于 U+D800 时，把代理项移到 U+E000~U+FFFF 之后；其余情况代码单元顺序即码点顺序
+                if (x >= Character.MIN_SURROGATE && y >= Character.MIN_SURROGATE) {
+                    return fixup(x) - fixup(y);
+                }
+                return x - y;
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    private static int fixup(char c) {
+        return Character.isSurrogate(c) ? c + 0x2000 : c - 0x800;
+    }
+}
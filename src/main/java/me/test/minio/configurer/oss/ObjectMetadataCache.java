@@ -0,0 +1,135 @@
+package me.test.minio.configurer.oss;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.SneakyThrows;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 桶存在性与对象元数据缓存
+ * <p>
+ * 上传前检查桶、读写前 HEAD 对象这类请求在稳定状态下结果几乎不变，按 TTL 缓存后省去大部分网络往返。
+ * MinioTemplate 与 S3Utils 共用同一个实例（S3Utils 只用到桶存在性），key 带上 scope（服务端点）区分不同的服务端。
+ * MinioTemplate 与 S3Utils 共用同一个实例，key 带上 scope（服务端点）区分不同的服务端。
+ *
+ * @author test
+ */
+public class ObjectMetadataCache {
+
+    private final Cache<String, Boolean> buckets;
+
+    /**
+     * 对象不存在时缓存 Optional.empty()
+     */
+    private final Cache<String, Optional<ObjectMeta>> objects;
+
+    public ObjectMetadataCache(OssProperties ossProperties) {
+        this(ossProperties.getMetadataCacheBucketTtl(), ossProperties.getMetadataCacheObjectTtl(), ossProperties.getMetadataCacheSize());
+    }
+
+    /**
+     * @param bucketTtl 桶存在性缓存时间（秒）
+     * @param objectTtl 对象元数据缓存时间（秒）
+     * @param maxSize   缓存的对象数量上限
+     */
+    public ObjectMetadataCache(long bucketTtl, long objectTtl, long maxSize) {
+        this.buckets = CacheBuilder.newBuilder().expireAfterWrite(bucketTtl, TimeUnit.SECONDS).build();
+        this.objects = CacheBuilder.newBuilder().expireAfterWrite(objectTtl, TimeUnit.SECONDS).maximumSize(maxSize).build();
+    }
+
+    /**
+     * 桶是否存在，未缓存时调用 loader
+     *
+     * @param scope      服务端点
+     * @param bucketName 桶名
+     * @param loader     查询桶是否存在
+     * @return 是否存在
+     */
+    public boolean bucketExists(String scope, String bucketName, Callable<Boolean> loader) {
+        return get(buckets, bucketKey(scope, bucketName), loader);
+    }
+
+    /**
+     * 记录桶已创建
+     */
+    public void putBucket(String scope, String bucketName) {
+        buckets.put(bucketKey(scope, bucketName), Boolean.TRUE);
+    }
+
+    /**
+     * 桶被删除时清除桶及其下所有对象的缓存
+     */
+    public void invalidateBucket(String scope, String bucketName) {
+        String key = bucketKey(scope, bucketName);
+        buckets.invalidate(key);
+        objects.asMap().keySet().removeIf(k -> k.startsWith(key + "/"));
+    }
+
+    /**
+     * 对象元数据，未缓存时调用 loader
+     *
+     * @param scope      服务端点
+     * @param bucketName 桶名
+     * @param objectName 对象名
+     * @param loader     查询对象元数据，对象不存在时返回 null
+     * @return 元数据，对象不存在时返回 null
+     */
+    public ObjectMeta objectMeta(String scope, String bucketName, String objectName, Callable<ObjectMeta> loader) {
+        return get(objects, objectKey(scope, bucketName, objectName), () -> Optional.ofNullable(loader.call())).orElse(null);
+    }
+
+    /**
+     * 记录对象元数据，meta 为 null 表示对象已删除
+     */
+    public void putObject(String scope, String bucketName, String objectName, ObjectMeta meta) {
+        objects.put(objectKey(scope, bucketName, objectName), Optional.ofNullable(meta));
+    }
+
+    /**
+     * 对象被覆盖等元数据未知的修改后清除缓存
+     */
+    public void invalidateObject(String scope, String bucketName, String objectName) {
+        objects.invalidate(objectKey(scope, bucketName, objectName));
+    }
+
+    @SneakyThrows
+    private static <T> T get(Cache<String, T> cache, String key, Callable<T> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String bucketKey(String scope, String bucketName) {
+        return scope + "|" + bucketName;
+    }
+
+    private static String objectKey(String scope, String bucketName, String objectName) {
+        return bucketKey(scope, bucketName) + "/" + objectName;
+    }
+
+    /**
+     * 对象元数据
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ObjectMeta {
+        long size;
+        String etag;
+        /**
+         * 最后修改时间，毫秒时间戳
+         */
+        long lastModified;
+        String contentType;
+    }
+}
@@ -0,0 +1,33 @@
+package me.test.minio.configurer.oss;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 列举得到的对象摘要，MinIO 与 S3 共用
+ *
+ * @author test
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ObjectSummary {
+
+    /**
+     * 对象名
+     */
+    String key;
+
+    /**
+     * 大小
+     */
+    long size;
+
+    String etag;
+
+    /**
+     * 最后修改时间，毫秒时间戳
+     */
+    long lastModified;
+}
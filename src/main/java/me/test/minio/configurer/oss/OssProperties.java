@@ -3,6 +3,9 @@ package me.test.minio.configurer.oss;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 @ConfigurationProperties(prefix = "oss")
 public class OssProperties {
@@ -36,4 +39,263 @@ public class OssProperties {
      * 默认存储桶名，没有指定时，会放在默认的存储桶
      */
     String defaultBucketName;
-}
\ No newline at end of file
+
+    /**
+     * 多集群分片，配置后对象按对象名路由到各分片，endpoint/accessKey/secretKey 不再用于读写对象
+     */
+    List<ShardEndpoint> shards = new ArrayList<>();
+
+    /**
+     * 除默认存储桶外允许通过下载、重定向接口访问的存储桶
+     */
+    List<String> downloadBuckets = new ArrayList<>();
+
+    /**
+     * 初始化分片上传时预签名的分片地址数量，其余分片地址按需获取
+     */
+    Integer presignWindow = 100;
+
+    /**
+     * 对象访问地址的签名有效期（秒），默认1天
+     */
+    Integer presignExpiry = 60 * 60 * 24;
+
+    /**
+     * 缓存的签名地址剩余有效期低于该值（秒）时重新签名，不超过有效期的一半
+     */
+    Integer presignRefreshMargin = 60 * 60;
+
+    /**
+     * 本地缓存的签名地址数量上限
+     */
+    Long presignCacheSize = 10000L;
+
+    /**
+     * 是否使用 redis 作为签名地址的二级缓存，多节点返回同一地址
+     */
+    Boolean presignCacheRedis = false;
+
+    /**
+     * 桶存在性缓存时间（秒）
+     */
+    Long metadataCacheBucketTtl = 300L;
+
+    /**
+     * 对象元数据缓存时间（秒），其他节点对同一对象的修改最多延迟这么久可见
+     */
+    Long metadataCacheObjectTtl = 60L;
+
+    /**
+     * 缓存的对象元数据数量上限
+     */
+    Long metadataCacheSize = 100000L;
+
+    /**
+     * 默认分片大小，客户端未提供带宽时使用
+     */
+    Long targetPartSize = 16L * 1024 * 1024;
+
+    /**
+     * 分片大小下限，不低于 5MiB
+     */
+    Long minPartSize = 5L * 1024 * 1024;
+
+    /**
+     * 分片大小上限，不超过 5GiB
+     */
+    Long maxPartSize = 512L * 1024 * 1024;
+
+    /**
+     * 客户端提供带宽时，单个分片期望的上传耗时（秒）
+     */
+    Integer targetPartSeconds = 10;
+
+    /**
+     * 是否开启过期分片上传清理
+     */
+    Boolean sweepEnabled = true;
+
+    /**
+     * 清理间隔（毫秒），默认1小时
+     */
+    Long sweepInterval = 60L * 60 * 1000;
+
+    /**
+     * 每批中止的分片上传数量
+     */
+    Integer sweepBatchSize = 100;
+
+    /**
+     * 中止分片上传的并发线程数
+     */
+    Integer sweepThreads = 4;
+
+    /**
+     * 每秒最多中止的分片上传数量
+     */
+    Double sweepRate = 20D;
+
+    /**
+     * 异步合并分片的线程数
+     */
+    Integer completeThreads = 4;
+
+    /**
+     * 异步合并分片的排队上限，超出时拒绝
+     */
+    Integer completeQueueCapacity = 100;
+
+    /**
+     * 服务端流式上传的分片大小，即每个缓冲区的大小，不低于 5MiB
+     */
+    Long streamPartSize = 8L * 1024 * 1024;
+
+    /**
+     * 服务端流式上传时单个文件同时上传的分片数
+     */
+    Integer uploadConcurrency = 4;
+
+    /**
+     * 服务端流式上传的缓冲区数量，整个节点共享，上传内存上限为 缓冲区数量 × 分片大小
+     */
+    Integer uploadBufferCount = 16;
+
+    /**
+     * 并发下载时每个区间的大小
+     */
+    Long downloadPartSize = 16L * 1024 * 1024;
+
+    /**
+     * 并发下载时单个文件同时请求的区间数
+     */
+    Integer downloadConcurrency = 8;
+
+    /**
+     * 并发下载的线程数，整个节点共享
+     */
+    Integer downloadThreads = 16;
+
+    /**
+     * 批量删除的并发批次数
+     */
+    Integer deleteThreads = 4;
+
+    /**
+     * 分页列举的每页数量，最大 1000
+     */
+    Integer listPageSize = 1000;
+
+    /**
+     * 分页列举预取下一页的线程数
+     */
+    Integer listThreads = 4;
+
+    /**
+     * 并行列举时同时进行的列举请求数，整个节点共享
+     */
+    Integer listConcurrency = 8;
+
+    /**
+     * 并行列举时按 "/" 向下发现前缀的层数，如 files/yyyy-MM-dd/ 为 2 层
+     */
+    Integer listSplitDepth = 2;
+
+    /**
+     * 本地对象清单索引目录，配置后记录经本服务的写入与删除，未配置时不启用
+     */
+    String inventoryDir;
+
+    /**
+     * 对象清单日志记录数超过该值时合并为新快照
+     */
+    Integer inventoryCompactThreshold = 100000;
+
+    /**
+     * 访问 MinIO 的 HTTP 连接参数，主端点与各分片各自使用一个连接池
+     */
+    Http http = new Http();
+
+    /**
+     * 分片集群
+     */
+    @Data
+    public static class ShardEndpoint {
+
+        /**
+         * OSS 访问端点
+         */
+        String endpoint;
+
+        /**
+         * 用户名，未配置时使用 oss.access-key
+         */
+        String accessKey;
+
+        /**
+         * 密码，未配置时使用 oss.secret-key
+         */
+        String secretKey;
+
+        /**
+         * 权重，按容量配置
+         */
+        Integer weight = 1;
+    }
+
+    /**
+     * HTTP 连接
+     */
+    @Data
+    public static class Http {
+
+        /**
+         * 连接池保留的空闲连接数，应不低于并发请求数，否则用完的连接被关闭后需重新建连
+         */
+        Integer maxIdleConnections = 64;
+
+        /**
+         * 空闲连接保留时间（秒）
+         */
+        Long keepAlive = 300L;
+
+        /**
+         * 异步请求的最大并发数
+         */
+        Integer maxRequests = 256;
+
+        /**
+         * 异步请求对同一主机的最大并发数
+         */
+        Integer maxRequestsPerHost = 256;
+
+        /**
+         * 连接超时（秒）
+         */
+        Long connectTimeout = 10L;
+
+        /**
+         * 读超时（秒）
+         */
+        Long readTimeout = 300L;
+
+        /**
+         * 写超时（秒）
+         */
+        Long writeTimeout = 300L;
+
+        /**
+         * 是否优先使用 HTTP/2，仅对 https 端点生效，由 TLS 协商决定
+         */
+        Boolean http2 = false;
+
+        /**
+         * socket 发送缓冲区大小（字节），未配置时使用系统默认
+         */
+        Integer sendBufferSize;
+
+        /**
+         * socket 接收缓冲区大小（字节），未配置时使用系统默认
+         */
+        Integer receiveBufferSize;
+    }
+}
@@ -0,0 +1,178 @@
+package me.test.minio.configurer.oss;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.SneakyThrows;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 分页列举
+ * <p>
+ * 把按页返回的列举接口包装成惰性的 Stream：调用方消费第 k 页时，后台线程已在请求第 k+1 页，
+ * 任何时刻最多持有两页，内存与桶的大小无关。多个来源（如多个分片）按顺序首尾相接。
+ * 提前结束消费时应关闭 Stream，取消预取。
+ *
+ * @author test
+ */
+public class PagedLister {
+
+    /**
+     * 单页最大数量
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final ExecutorService executor;
+
+    public PagedLister(int threads) {
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads),
+                new ThreadFactoryBuilder().setNameFormat("oss-list-%d").setDaemon(true).build());
+    }
+
+    /**
+     * 把页大小限制在 1~1000
+     */
+    public static int pageSize(Integer pageSize) {
+        return pageSize == null ? MAX_PAGE_SIZE : Math.max(1, Math.min(MAX_PAGE_SIZE, pageSize));
+    }
+
+    /**
+     * 依次列举各个来源
+     *
+     * @param fetchers 每个来源的分页请求
+     * @return 惰性 Stream，关闭时取消预取
+     */
+    public <T> Stream<T> stream(List<PageFetcher<T>> fetchers) {
+        PrefetchIterator<T> iterator = new PrefetchIterator<>(fetchers.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * 列举单个来源
+     */
+    public <T> Stream<T> stream(PageFetcher<T> fetcher) {
+        return stream(Collections.singletonList(fetcher));
+    }
+
+    /**
+     * 容器关闭时停止预取线程
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 请求一页
+     */
+    @FunctionalInterface
+    public interface PageFetcher<T> {
+
+        /**
+         * @param token 上一页返回的 nextToken，第一页为 null
+         * @return 一页数据
+         */
+        Page<T> fetch(String token) throws Exception;
+    }
+
+    /**
+     * 一页数据
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Page<T> {
+        private final List<T> items;
+        /**
+         * 下一页的标记，最后一页为 null
+         */
+        private final String nextToken;
+    }
+
+    private class PrefetchIterator<T> extends AbstractIterator<T> {
+
+        private final Iterator<PageFetcher<T>> fetchers;
+
+        private PageFetcher<T> fetcher;
+
+        private Iterator<T> items = Collections.emptyIterator();
+
+        /**
+         * 正在请求的下一页，没有下一页时为 null
+         */
+        private CompletableFuture<Page<T>> next;
+
+        private volatile boolean closed;
+
+        PrefetchIterator(Iterator<PageFetcher<T>> fetchers) {
+            this.fetchers = fetchers;
+            prefetch(null);
+        }
+
+        @Override
+        protected T computeNext() {
+            while (!items.hasNext()) {
+                if (closed) {
+                    return endOfData();
+                }
+                if (next == null) {
+                    return endOfData();
+                }
+                Page<T> page = join(next);
+                prefetch(page.getNextToken());
+                items = page.getItems().iterator();
+            }
+            return items.next();
+        }
+
+        /**
+         * 预取当前来源的下一页，当前来源已列举完时预取下一个来源的第一页
+         */
+        private void prefetch(String token) {
+            if (token != null) {
+                next = fetch(fetcher, token);
+            } else if (fetchers.hasNext()) {
+                fetcher = fetchers.next();
+                next = fetch(fetcher, null);
+            } else {
+                next = null;
+            }
+        }
+
+        void close() {
+            closed = true;
+            if (next != null) {
+                next.cancel(true);
+            }
+        }
+
+        private CompletableFuture<Page<T>> fetch(PageFetcher<T> fetcher, String token) {
+            return CompletableFuture.supplyAsync(() -> fetchPage(fetcher, token), executor);
+        }
+
+        @SneakyThrows
+        private Page<T> fetchPage(PageFetcher<T> fetcher, String token) {
+            return fetcher.fetch(token);
+        }
+
+        @SneakyThrows
+        private Page<T> join(CompletableFuture<Page<T>> future) {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                throw e.getCause() == null ? e : e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package me.test.minio.configurer.oss;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.SneakyThrows;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 按前缀分区并行列举
+ * <p>
+ * 对象名形如 files/yyyy-MM-dd/uuid/...，单线程顺序 LIST 上亿个对象需要数小时。
+ * 先用 delimiter "/" 逐层发现前缀，到 splitDepth 层为止，每个前缀是一个互不重叠的 key 区间；
+ * 前缀发现在 ForkJoin 线程池上递归展开，各区间再由列举线程并行递归列举。所有列举请求共用一个信号量，
+ * 同时进行的请求数不超过 concurrency；列举线程只在请求期间占用许可，等待消费时不会阻塞其他列举。
+ * <p>
+ * 无序模式下 concurrency 个线程依次领取区间，结果汇入一个有界队列；有序模式下区间按前缀排序，最多 concurrency 个区间同时列举，
+ * 按顺序消费，区间之间不重叠，拼接后即整体有序。多个来源（分片）的有序结果再按 key 归并。
+ *
+ * @author test
+ */
+public class ParallelLister {
+
+    /**
+     * 前缀分隔符
+     */
+    public static final String DELIMITER = "/";
+
+    /**
+     * 每个区间缓冲的对象数量
+     */
+    private static final int QUEUE_CAPACITY = PagedLister.MAX_PAGE_SIZE * 2;
+
+    private static final Object END = new Object();
+
+    /**
+     * 前缀发现
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * 区间列举，写满队列时等待消费
+     */
+    private final ExecutorService workers;
+
+    /**
+     * 同时进行的列举请求数
+     */
+    private final Semaphore requests;
+
+    private final int concurrency;
+
+    private final int splitDepth;
+
+    public ParallelLister(int concurrency, int splitDepth) {
+        this.concurrency = Math.max(1, concurrency);
+        this.splitDepth = Math.max(1, splitDepth);
+        this.pool = new ForkJoinPool(this.concurrency);
+        this.workers = Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder().setNameFormat("oss-list-%d").setDaemon(true).build());
+        this.requests = new Semaphore(this.concurrency);
+    }
+
+    /**
+     * 并行列举
+     *
+     * @param sources 列举来源，如每个分片一个
+     * @param prefix  起始前缀，可为 null
+     * @param ordered 是否按 key 有序返回
+     * @return 对象摘要，提前结束消费时应关闭
+     */
+    public Stream<ObjectSummary> list(List<ListingSource> sources, String prefix, boolean ordered) {
+        Listing listing = new Listing();
+        List<Iterator<ObjectSummary>> iterators = new ArrayList<>(sources.size());
+        List<List<Partition>> partitions = new ArrayList<>(sources.size());
+        for (ListingSource source : sources) {
+            partitions.add(pool.invoke(new DiscoverTask(source, prefix == null ? "" : prefix, 0)));
+        }
+        Iterator<ObjectSummary> iterator;
+        if (ordered) {
+            for (List<Partition> sourcePartitions : partitions) {
+                iterators.add(new OrderedIterator(listing, sourcePartitions));
+            }
+            iterator = iterators.size() == 1 ? iterators.get(0)
+                    : Iterators.mergeSorted(iterators, Comparator.comparing(ObjectSummary::getKey, ObjectKeyOrder.INSTANCE));
+        } else {
+            List<Partition> all = new ArrayList<>();
+            partitions.forEach(all::addAll);
+            iterator = new UnorderedIterator(listing, all);
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.NONNULL), false)
+                .onClose(listing::cancel);
+    }
+
+    /**
+     * 容器关闭时停止列举线程
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    @SneakyThrows
+    private <T> T request(RequestCall<T> call) {
+        requests.acquire();
+        try {
+            return call.call();
+        } finally {
+            requests.release();
+        }
+    }
+
+    /**
+     * 列举递归前缀下的一个区间，逐个放入队列
+     */
+    private void listPartition(Listing listing, Partition partition, BlockingQueue<Object> queue) {
+        String token = null;
+        do {
+            String current = token;
+            PagedLister.Page<ObjectSummary> page = request(() -> partition.source.list(partition.key, current));
+            for (ObjectSummary item : page.getItems()) {
+                if (!listing.put(queue, item)) {
+                    return;
+                }
+            }
+            token = page.getNextToken();
+        } while (token != null && !listing.cancelled);
+    }
+
+    /**
+     * 列举来源，由 MinIO 或 S3 客户端实现
+     */
+    public interface ListingSource {
+
+        /**
+         * 按 DELIMITER 列举一页
+         *
+         * @param prefix 前缀
+         * @param token  上一页的 nextToken，第一页为 null
+         * @return 当前层的对象与子前缀
+         */
+        DelimitedPage listDelimited(String prefix, String token) throws Exception;
+
+        /**
+         * 递归列举一页
+         *
+         * @param prefix 前缀
+         * @param token  上一页的 nextToken，第一页为 null
+         * @return 前缀下的对象
+         */
+        PagedLister.Page<ObjectSummary> list(String prefix, String token) throws Exception;
+    }
+
+    /**
+     * 按 delimiter 列举的一页
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class DelimitedPage {
+        private final List<ObjectSummary> items;
+        private final List<String> prefixes;
+        /**
+         * 下一页的标记，最后一页为 null
+         */
+        private final String nextToken;
+    }
+
+    @FunctionalInterface
+    private interface RequestCall<T> {
+        T call() throws Exception;
+    }
+
+    /**
+     * 区间：一个递归前缀，或前缀发现时遇到的单个对象
+     */
+    private static class Partition {
+        final ListingSource source;
+        final String key;
+        final ObjectSummary object;
+
+        Partition(ListingSource source, String key, ObjectSummary object) {
+            this.source = source;
+            this.key = key;
+            this.object = object;
+        }
+    }
+
+    /**
+     * 一次列举的状态，关闭 Stream 或出错时取消
+     */
+    private static class Listing {
+
+        volatile boolean cancelled;
+
+        volatile Throwable error;
+
+        void fail(Throwable e) {
+            if (error == null) {
+                error = e;
+            }
+            cancelled = true;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * 队列满时等待，已取消时放弃
+         */
+        @SneakyThrows
+        boolean put(BlockingQueue<Object> queue, Object item) {
+            while (!cancelled) {
+                if (queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @SneakyThrows
+        Object take(BlockingQueue<Object> queue) {
+            while (true) {
+                if (error != null) {
+                    throw error;
+                }
+                Object item = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (item != null) {
+                    return item;
+                }
+                if (cancelled) {
+                    return END;
+                }
+            }
+        }
+    }
+
+    /**
+     * 逐层发现前缀，到 splitDepth 层为止
+     */
+    private class DiscoverTask extends RecursiveTask<List<Partition>> {
+
+        private final ListingSource source;
+        private final String prefix;
+        private final int depth;
+
+        DiscoverTask(ListingSource source, String prefix, int depth) {
+            this.source = source;
+            this.prefix = prefix;
+            this.depth = depth;
+        }
+
+        @Override
+        protected List<Partition> compute() {
+            List<Partition> partitions = new ArrayList<>();
+            List<DiscoverTask> children = new ArrayList<>();
+            String token = null;
+            do {
+                String current = token;
+                DelimitedPage page = request(() -> source.listDelimited(prefix, current));
+                for (ObjectSummary item : page.getItems()) {
+                    partitions.add(new Partition(source, item.getKey(), item));
+                }
+                for (String child : page.getPrefixes()) {
+                    if (depth + 1 < splitDepth) {
+                        children.add(new DiscoverTask(source, child, depth + 1));
+                    } else {
+                        partitions.add(new Partition(source, child, null));
+                    }
+                }
+                token = page.getNextToken();
+            } while (token != null);
+            for (DiscoverTask child : invokeAll(children)) {
+                partitions.addAll(child.join());
+            }
+            partitions.sort(Comparator.comparing(partition -> partition.key, ObjectKeyOrder.INSTANCE));
+            return partitions;
+        }
+    }
+
+    /**
+     * 无序：concurrency 个线程依次领取区间，结果汇入同一个队列
+     */
+    private class UnorderedIterator extends AbstractIterator<ObjectSummary> {
+
+        private final Listing listing;
+
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        private final AtomicInteger remaining;
+
+        UnorderedIterator(Listing listing, List<Partition> partitions) {
+            this.listing = listing;
+            Queue<Partition> todo = new ConcurrentLinkedQueue<>(partitions);
+            int threads = Math.min(concurrency, partitions.size());
+            this.remaining = new AtomicInteger(threads + 1);
+            for (int i = 0; i < threads; i++) {
+                workers.execute(() -> {
+                    try {
+                        Partition partition;
+                        while (!listing.cancelled && (partition = todo.poll()) != null) {
+                            if (partition.object != null) {
+                                listing.put(queue, partition.object);
+                            } else {
+                                listPartition(listing, partition, queue);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        listing.fail(e);
+                    } finally {
+                        done();
+                    }
+                });
+            }
+            done();
+        }
+
+        private void done() {
+            if (remaining.decrementAndGet() == 0) {
+                listing.put(queue, END);
+            }
+        }
+
+        @Override
+        protected ObjectSummary computeNext() {
+            Object item = listing.take(queue);
+            return item == END ? endOfData() : (ObjectSummary) item;
+        }
+    }
+
+    /**
+     * 有序：按前缀顺序消费，最多 concurrency 个区间提前列举
+     */
+    private class OrderedIterator extends AbstractIterator<ObjectSummary> {
+
+        private final Listing listing;
+
+        private final List<Partition> partitions;
+
+        /**
+         * 已提交的区间的队列，按区间顺序
+         */
+        private final List<BlockingQueue<Object>> queues = new ArrayList<>();
+
+        private int current;
+
+        OrderedIterator(Listing listing, List<Partition> partitions) {
+            this.listing = listing;
+            this.partitions = partitions;
+        }
+
+        @Override
+        protected ObjectSummary computeNext() {
+            while (current < partitions.size()) {
+                while (queues.size() < partitions.size() && queues.size() < current + concurrency) {
+                    queues.add(start(partitions.get(queues.size())));
+                }
+                Object item = listing.take(queues.get(current));
+                if (item != END) {
+                    return (ObjectSummary) item;
+                }
+                if (listing.cancelled) {
+                    return endOfData();
+                }
+                // 释放已消费完的区间
+                queues.set(current, null);
+                current++;
+            }
+            return endOfData();
+        }
+
+        private BlockingQueue<Object> start(Partition partition) {
+            if (partition.object != null) {
+                BlockingQueue<Object> queue = new ArrayBlockingQueue<>(2);
+                queue.add(partition.object);
+                queue.add(END);
+                return queue;
+            }
+            BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            workers.execute(() -> {
+                try {
+                    listPartition(listing, partition, queue);
+                } catch (Throwable e) {
+                    listing.fail(e);
+                } finally {
+                    listing.put(queue, END);
+                }
+            });
+            return queue;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package me.test.minio.configurer.oss;
+
+import com.google.common.collect.Multimap;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.minio.ObjectWriteResponse;
+import io.minio.messages.Part;
+import lombok.SneakyThrows;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 并发分片上传
+ * <p>
+ * 把流切成分片，从固定数量的缓冲区池中取缓冲区填充，同一个上传最多 uploadConcurrency 个分片同时上传。
+ * 整个节点的上传内存不超过 缓冲区数量 × 分片大小，缓冲区用完时读取方阻塞等待，形成背压。
+ * <p>
+ * 缓冲区使用堆内 byte[]：minio-java 的请求体只接受 byte[]、RandomAccessFile 和流，
+ * byte[] 可以直接发送，直接内存需要再拷贝一次到堆内。
+ *
+ * @author test
+ */
+public class ParallelPartUploader {
+
+    private final int partSize;
+
+    private final int concurrency;
+
+    /**
+     * 缓冲区池
+     */
+    private final BlockingQueue<byte[]> buffers;
+
+    private final ExecutorService executor;
+
+    public ParallelPartUploader(OssProperties ossProperties) {
+        this.partSize = (int) Math.max(MultipartPlan.MIN_PART_SIZE, Math.min(Integer.MAX_VALUE - 8, ossProperties.getStreamPartSize()));
+        this.concurrency = Math.max(1, ossProperties.getUploadConcurrency());
+        int bufferCount = Math.max(1, ossProperties.getUploadBufferCount());
+        this.buffers = new ArrayBlockingQueue<>(bufferCount);
+        for (int i = 0; i < bufferCount; i++) {
+            buffers.add(new byte[partSize]);
+        }
+        // 同时在途的分片数不会超过缓冲区数量
+        this.executor = Executors.newFixedThreadPool(bufferCount,
+                new ThreadFactoryBuilder().setNameFormat("oss-upload-%d").setDaemon(true).build());
+    }
+
+    /**
+     * 分片大小
+     */
+    public int getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * 上传流，不足一个分片时直接 putObject，否则并发分片上传，失败时中止
+     *
+     * @param minioClient 对象所在分片的客户端
+     * @param bucketName  桶名
+     * @param objectName  对象名
+     * @param inputStream 流
+     * @param headers     对象请求头，如 Content-Type
+     * @return 上传的对象
+     */
+    @SneakyThrows
+    public ObjectSummary upload(CustomMinioClient minioClient, String bucketName, String objectName, InputStream inputStream, Multimap<String, String> headers) {
+        byte[] buffer = buffers.take();
+        int length;
+        try {
+            length = ByteStreams.read(inputStream, buffer, 0, partSize);
+            if (length < partSize) {
+                ObjectWriteResponse response = minioClient.putBytes(bucketName, null, objectName, buffer, length, headers);
+                buffers.put(buffer);
+                return new ObjectSummary(objectName, length, response.etag(), System.currentTimeMillis());
+            }
+        } catch (Exception e) {
+            buffers.put(buffer);
+            throw e;
+        }
+        // 第一个分片已读满，缓冲区交给分片上传任务
+        String uploadId;
+        try {
+            uploadId = minioClient.initMultiPartUpload(bucketName, null, objectName, headers, null);
+        } catch (Exception e) {
+            buffers.put(buffer);
+            throw e;
+        }
+
+        Semaphore inflight = new Semaphore(concurrency - 1);
+        List<CompletableFuture<Part>> parts = new ArrayList<>();
+        long size = 0;
+        try {
+            while (true) {
+                int partNumber = parts.size() + 1;
+                if (partNumber > MinioTemplate.MAX_PARTS) {
+                    buffers.put(buffer);
+                    throw new IllegalArgumentException("object is too large for stream upload");
+                }
+                parts.add(submit(minioClient, bucketName, objectName, uploadId, partNumber, buffer, length, inflight));
+                size += length;
+
+                inflight.acquire();
+                buffer = buffers.take();
+                length = read(inputStream, buffer, parts);
+                if (length <= 0) {
+                    buffers.put(buffer);
+                    inflight.release();
+                    break;
+                }
+            }
+            Part[] completed = new Part[parts.size()];
+            for (int i = 0; i < completed.length; i++) {
+                completed[i] = parts.get(i).join();
+            }
+            ObjectWriteResponse response = minioClient.mergeMultipartUpload(bucketName, null, objectName, uploadId, completed, null, null);
+            return new ObjectSummary(objectName, size, response.etag(), System.currentTimeMillis());
+        } catch (Exception e) {
+            // 等待在途分片结束，保证缓冲区都已归还
+            CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).exceptionally(t -> null).join();
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            // 取消失败不覆盖上传失败的原因
+            try {
+                minioClient.abortUpload(bucketName, null, objectName, uploadId);
+            } catch (Exception abortError) {
+                cause.addSuppressed(abortError);
+            }
+            throw cause;
+        }
+    }
+
+    /**
+     * 容器关闭时停止上传线程
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 读取下一个分片，已有分片失败时不再读取，避免继续占用缓冲区
+     */
+    @SneakyThrows
+    private int read(InputStream inputStream, byte[] buffer, List<CompletableFuture<Part>> parts) {
+        for (CompletableFuture<Part> part : parts) {
+            if (part.isCompletedExceptionally()) {
+                buffers.put(buffer);
+                part.join();
+            }
+        }
+        try {
+            return ByteStreams.read(inputStream, buffer, 0, partSize);
+        } catch (Exception e) {
+            buffers.put(buffer);
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Part> submit(CustomMinioClient minioClient, String bucketName, String objectName, String uploadId, int partNumber, byte[] buffer, int length, Semaphore inflight) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return new Part(partNumber, uploadPart(minioClient, bucketName, objectName, uploadId, partNumber, buffer, length));
+            } finally {
+                buffers.add(buffer);
+                inflight.release();
+            }
+        }, executor);
+    }
+
+    @SneakyThrows
+    private String uploadPart(CustomMinioClient minioClient, String bucketName, String objectName, String uploadId, int partNumber, byte[] buffer, int length) {
+        return minioClient.uploadPartBytes(bucketName, null, objectName, uploadId, partNumber, buffer, length);
+    }
+}
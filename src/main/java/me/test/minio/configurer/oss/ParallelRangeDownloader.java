@@ -0,0 +1,248 @@
+package me.test.minio.configurer.oss;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 并发分段下载
+ * <p>
+ * 按 partSize 把对象切成字节区间，同一个下载最多 concurrency 个区间同时请求，每个区间边读边用
+ * FileChannel 按位置写入预先分配好长度的目标文件，区间之间互不等待。
+ * <p>
+ * 每完成一个区间，先 force 落盘再更新断点文件（目标文件名 + .ckpt）；下载中断后再次下载同一目标文件，
+ * 对象版本（ETag）、大小和分段大小都一致时只下载未完成的区间，全部完成后删除断点文件。
+ *
+ * @author test
+ */
+@Slf4j
+public class ParallelRangeDownloader {
+
+    /**
+     * 断点文件后缀
+     */
+    private static final String CHECKPOINT_SUFFIX = ".ckpt";
+
+    /**
+     * 每次读取写入的大小
+     */
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private final long partSize;
+
+    private final int concurrency;
+
+    private final ExecutorService executor;
+
+    public ParallelRangeDownloader(OssProperties ossProperties) {
+        this(ossProperties.getDownloadPartSize(), ossProperties.getDownloadConcurrency(), ossProperties.getDownloadThreads());
+    }
+
+    /**
+     * @param partSize    区间大小
+     * @param concurrency 单个下载同时请求的区间数
+     * @param threads     下载线程数，所有下载共享
+     */
+    public ParallelRangeDownloader(long partSize, int concurrency, int threads) {
+        this.partSize = Math.max(BUFFER_SIZE, partSize);
+        this.concurrency = Math.max(1, concurrency);
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads),
+                new ThreadFactoryBuilder().setNameFormat("oss-download-%d").setDaemon(true).build());
+    }
+
+    /**
+     * 下载到文件，失败时保留已完成的区间和断点文件，下次调用继续
+     *
+     * @param size    对象大小
+     * @param version 对象版本，一般为 ETag，用于判断断点是否仍然有效
+     * @param reader  按区间读取对象
+     * @param target  目标文件
+     * @return 目标文件
+     */
+    @SneakyThrows
+    public File download(long size, String version, RangeReader reader, File target) {
+        int partCount = (int) ((size + partSize - 1) / partSize);
+        Path checkpointPath = new File(target.getPath() + CHECKPOINT_SUFFIX).toPath();
+        Checkpoint checkpoint = Checkpoint.load(checkpointPath, version, size, partSize, target);
+
+        try (RandomAccessFile file = new RandomAccessFile(target, "rw")) {
+            if (checkpoint.done.isEmpty()) {
+                file.setLength(0);
+            }
+            file.setLength(size);
+            FileChannel channel = file.getChannel();
+            if (!checkpoint.done.isEmpty()) {
+                log.info("断点续传: {} 已完成 {}/{} 个区间", target, checkpoint.done.cardinality(), partCount);
+            }
+
+            List<Integer> pending = checkpoint.pending(partCount);
+            Semaphore inflight = new Semaphore(concurrency);
+            List<CompletableFuture<Void>> parts = new ArrayList<>();
+            try {
+                for (int i : pending) {
+                    inflight.acquire();
+                    // 已有区间失败时不再提交
+                    for (CompletableFuture<Void> part : parts) {
+                        if (part.isCompletedExceptionally()) {
+                            part.join();
+                        }
+                    }
+                    long offset = i * partSize;
+                    long length = Math.min(partSize, size - offset);
+                    int index = i;
+                    parts.add(CompletableFuture.runAsync(() -> {
+                        try {
+                            transfer(reader, channel, offset, length);
+                            checkpoint.complete(channel, index);
+                        } finally {
+                            inflight.release();
+                        }
+                    }, executor));
+                }
+                CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).join();
+            } catch (Exception e) {
+                // 等待在途区间结束后再关闭文件，已完成的区间保留在断点文件中
+                CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).exceptionally(t -> null).join();
+                throw e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            }
+            channel.force(true);
+        }
+        Files.deleteIfExists(checkpointPath);
+        return target;
+    }
+
+    /**
+     * 容器关闭时停止下载线程
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @SneakyThrows
+    private static void transfer(RangeReader reader, FileChannel channel, long offset, long length) {
+        byte[] buffer = BUFFER.get();
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        long position = offset;
+        try (InputStream in = reader.open(offset, length)) {
+            int n;
+            while (position < offset + length
+                    && (n = in.read(buffer, 0, (int) Math.min(buffer.length, offset + length - position))) != -1) {
+                byteBuffer.clear().limit(n);
+                while (byteBuffer.hasRemaining()) {
+                    position += channel.write(byteBuffer, position);
+                }
+            }
+        }
+        if (position != offset + length) {
+            throw new EOFException("range " + offset + "-" + (offset + length - 1) + " ended at " + position);
+        }
+    }
+
+    /**
+     * 按区间读取对象
+     */
+    @FunctionalInterface
+    public interface RangeReader {
+
+        /**
+         * @param offset 起始字节
+         * @param length 长度
+         * @return 区间内容
+         */
+        InputStream open(long offset, long length) throws Exception;
+    }
+
+    /**
+     * 断点
+     */
+    private static class Checkpoint {
+
+        private final Path path;
+        private final String version;
+        private final long size;
+        private final long partSize;
+        private final BitSet done;
+
+        private Checkpoint(Path path, String version, long size, long partSize, BitSet done) {
+            this.path = path;
+            this.version = version;
+            this.size = size;
+            this.partSize = partSize;
+            this.done = done;
+        }
+
+        /**
+         * 读取断点，对象已变化、分段大小不同或目标文件不完整时从头开始
+         */
+        static Checkpoint load(Path path, String version, long size, long partSize, File target) {
+            BitSet done = new BitSet();
+            if (Files.exists(path) && target.length() == size) {
+                try {
+                    JSONObject json = JSONUtil.readJSONObject(path.toFile(), StandardCharsets.UTF_8);
+                    if (String.valueOf(version).equals(json.getStr("version"))
+                            && json.getLong("size") == size && json.getLong("partSize") == partSize) {
+                        JSONArray parts = json.getJSONArray("done");
+                        for (int i = 0; i < parts.size(); i++) {
+                            done.set(parts.getInt(i));
+                        }
+                    }
+                } catch (Exception e) {
+                    log.warn("断点文件无效，重新下载: {}", path, e);
+                    done.clear();
+                }
+            }
+            return new Checkpoint(path, version, size, partSize, done);
+        }
+
+        synchronized List<Integer> pending(int partCount) {
+            List<Integer> pending = new ArrayList<>();
+            for (int i = done.nextClearBit(0); i < partCount; i = done.nextClearBit(i + 1)) {
+                pending.add(i);
+            }
+            return pending;
+        }
+
+        /**
+         * 区间写入落盘后再记录，保证断点文件中的区间一定已在目标文件中
+         */
+        @SneakyThrows
+        synchronized void complete(FileChannel channel, int index) {
+            channel.force(false);
+            done.set(index);
+            JSONArray parts = new JSONArray();
+            done.stream().forEach(parts::add);
+            JSONObject json = new JSONObject();
+            json.set("version", version);
+            json.set("size", size);
+            json.set("partSize", partSize);
+            json.set("done", parts);
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.write(tmp, json.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
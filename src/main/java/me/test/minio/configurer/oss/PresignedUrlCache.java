@@ -0,0 +1,144 @@
+package me.test.minio.configurer.oss;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.minio.http.Method;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.SneakyThrows;
+import me.test.minio.configurer.redis.RedisUtil;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 预签名地址缓存
+ * <p>
+ * 同一对象在有效期内复用同一个签名地址：既省去重复签名，也让浏览器和 CDN 能按地址缓存对象。
+ * 剩余有效期不足 refreshMargin 时视为过期并重新签名，保证返回的地址至少还能用 refreshMargin 秒。
+ * 本地缓存之外可选 redis 二级缓存，多个节点返回同一个地址。
+ *
+ * @author test
+ */
+public class PresignedUrlCache {
+
+    /**
+     * redis key 前缀
+     */
+    private static final String KEY_PREFIX = "oss:presign:";
+
+    private final Cache<String, CachedUrl> local;
+
+    /**
+     * 二级缓存，未开启时为 null
+     */
+    private final RedisUtil redisUtil;
+
+    /**
+     * 签名有效期（秒）
+     */
+    private final int expiry;
+
+    /**
+     * 剩余有效期低于该值（秒）时重新签名
+     */
+    private final int refreshMargin;
+
+    public PresignedUrlCache(OssProperties ossProperties, RedisUtil redisUtil) {
+        this.expiry = ossProperties.getPresignExpiry();
+        this.refreshMargin = Math.min(ossProperties.getPresignRefreshMargin(), expiry / 2);
+        this.redisUtil = redisUtil;
+        this.local = CacheBuilder.newBuilder()
+                .maximumSize(ossProperties.getPresignCacheSize())
+                .expireAfterWrite(expiry - refreshMargin, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 签名有效期（秒）
+     */
+    public int getExpiry() {
+        return expiry;
+    }
+
+    /**
+     * 获取签名地址，缓存中没有或即将过期时调用 signer 重新签名
+     *
+     * @param method     请求方式
+     * @param bucketName 桶名
+     * @param objectName 对象名
+     * @param signer     按 expiry 签名
+     * @return 签名地址
+     */
+    @SneakyThrows
+    public String get(Method method, String bucketName, String objectName, Supplier<String> signer) {
+        String key = key(method, bucketName, objectName);
+        CachedUrl cached = local.getIfPresent(key);
+        if (cached != null && fresh(cached)) {
+            return cached.getUrl();
+        }
+        if (cached != null) {
+            local.invalidate(key);
+        }
+        try {
+            // 同一 key 并发未命中时只签名一次
+            return local.get(key, () -> load(key, signer)).getUrl();
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 清除缓存的签名地址
+     *
+     * @param method     请求方式
+     * @param bucketName 桶名
+     * @param objectName 对象名
+     */
+    public void invalidate(Method method, String bucketName, String objectName) {
+        String key = key(method, bucketName, objectName);
+        local.invalidate(key);
+        if (redisUtil != null) {
+            redisUtil.del(key);
+        }
+    }
+
+    private CachedUrl load(String key, Supplier<String> signer) {
+        if (redisUtil != null) {
+            CachedUrl cached = (CachedUrl) redisUtil.get(key);
+            if (cached != null && fresh(cached)) {
+                return cached;
+            }
+        }
+        CachedUrl cached = new CachedUrl(signer.get(), System.currentTimeMillis() + expiry * 1000L);
+        if (redisUtil != null) {
+            redisUtil.set(key, cached, expiry - refreshMargin);
+        }
+        return cached;
+    }
+
+    private boolean fresh(CachedUrl cached) {
+        return cached.getExpiresAt() - System.currentTimeMillis() > refreshMargin * 1000L;
+    }
+
+    private static String key(Method method, String bucketName, String objectName) {
+        return KEY_PREFIX + method + ":" + bucketName + ":" + objectName;
+    }
+
+    /**
+     * 缓存的签名地址
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CachedUrl {
+        String url;
+        /**
+         * 过期时间，毫秒时间戳
+         */
+        long expiresAt;
+    }
+}
@@ -0,0 +1,98 @@
+package me.test.minio.configurer.oss;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 多 MinIO 集群分片路由
+ * <p>
+ * 按对象名做加权 rendezvous hash（HRW）：每个分片得分 weight / -ln(u)，u 为 hash(分片, 对象名) 映射到 (0,1)，
+ * 得分最高的分片持有该对象。新增分片时只有被新分片"赢走"的对象（约 新分片权重/总权重）需要迁移，其余对象位置不变。
+ * 未配置 oss.shards 时只有一个分片，行为与单集群一致。
+ *
+ * @author test
+ */
+public class ShardRouter {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final List<Shard> shards;
+
+    public ShardRouter(List<Shard> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("at least one shard is required");
+        }
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+    }
+
+    /**
+     * 对象所在分片
+     *
+     * @param objectName 对象名
+     * @return 分片
+     */
+    public Shard route(String objectName) {
+        if (shards.size() == 1) {
+            return shards.get(0);
+        }
+        Shard owner = null;
+        double best = Double.NEGATIVE_INFINITY;
+        for (Shard shard : shards) {
+            double score = score(shard, objectName);
+            if (score > best) {
+                best = score;
+                owner = shard;
+            }
+        }
+        return owner;
+    }
+
+    /**
+     * 全部分片，桶操作、列举等需要在每个分片上执行
+     */
+    public List<Shard> all() {
+        return shards;
+    }
+
+    /**
+     * 第一个分片，用于不区分对象的查询，如列举桶
+     */
+    public Shard primary() {
+        return shards.get(0);
+    }
+
+    private static double score(Shard shard, String objectName) {
+        long hash = HASH.newHasher()
+                .putString(shard.getName(), StandardCharsets.UTF_8)
+                .putString(objectName, StandardCharsets.UTF_8)
+                .hash().asLong();
+        // 取高 53 位映射到 (0,1)
+        double u = ((hash >>> 11) + 0.5) / (1L << 53);
+        return shard.getWeight() / -Math.log(u);
+    }
+
+    /**
+     * 分片
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Shard {
+        /**
+         * 分片标识，参与 hash，取 endpoint
+         */
+        private final String name;
+        /**
+         * 权重
+         */
+        private final int weight;
+        private final CustomMinioClient client;
+        private final BatchPresigner presigner;
+    }
+}
@@ -6,11 +6,17 @@ import org.springframework.data.geo.*;
 import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisGeoCommands;
 import org.springframework.data.redis.core.*;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -20,6 +26,12 @@ import java.util.concurrent.TimeUnit;
 public final class RedisUtil {
 
 
+    private static final RedisScript<Long> COMPARE_AND_SET = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3]) return 1 end return 0", Long.class);
+
+    private static final RedisSerializer<Long> LONG_RESULT = new GenericToStringSerializer<>(Long.class);
+
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
@@ -179,6 +191,49 @@ public final class RedisUtil {
     }
 
 
+    /**
+     * 不存在时放入并设置时间
+     *
+     * @param key   键
+     * @param value 值
+     * @param time  时间(秒) 要大于0
+     * @return true成功 false 已存在或失败
+     */
+
+    public boolean setIfAbsent(String key, Object value, long time) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value, time, TimeUnit.SECONDS));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+
+    }
+
+    /**
+     * 当前值与 expect 相同时替换为 value 并设置时间，比较和写入在一个脚本中原子执行
+     *
+     * @param key    键
+     * @param expect 期望的当前值，按值序列化后逐字节比较
+     * @param value  新值
+     * @param time   时间(秒) 要大于0
+     * @return true成功 false 当前值已变化或失败
+     */
+    @SuppressWarnings("unchecked")
+    public boolean compareAndSet(String key, Object expect, Object value, long time) {
+        try {
+            RedisSerializer<Object> serializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+            Long result = redisTemplate.execute(COMPARE_AND_SET, RedisSerializer.byteArray(), LONG_RESULT,
+                    Collections.singletonList(key), serializer.serialize(expect), serializer.serialize(value),
+                    String.valueOf(time).getBytes(StandardCharsets.UTF_8));
+            return Long.valueOf(1).equals(result);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+
     /**
      * 递增
      *
@@ -714,6 +769,18 @@ public final class RedisUtil {
         redisTemplate.opsForZSet().remove(key, value);
     }
 
+    /**
+     * 按score区间删除元素 zremrangebyscore
+     *
+     * @param key
+     * @param min
+     * @param max
+     * @return 删除的数量
+     */
+    public Long zremoveRangeByScore(String key, double min, double max) {
+        return redisTemplate.opsForZSet().removeRangeByScore(key, min, max);
+    }
+
     /**
      * score的增加or减少 zincrby
      *
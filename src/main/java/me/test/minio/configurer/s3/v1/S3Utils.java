@@ -8,20 +8,35 @@ import com.amazonaws.services.s3.AmazonS3Client;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.amazonaws.services.s3.model.*;
 import com.amazonaws.services.s3.transfer.*;
+import com.amazonaws.services.s3.transfer.model.UploadResult;
 import com.amazonaws.util.StringInputStream;
+import com.google.common.collect.AbstractIterator;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import me.test.minio.configurer.oss.BatchDeleter;
+import me.test.minio.configurer.oss.ObjectInventory;
+import me.test.minio.configurer.oss.ObjectMetadataCache;
+import me.test.minio.configurer.oss.ObjectSummary;
+import me.test.minio.configurer.oss.PagedLister;
+import me.test.minio.configurer.oss.OssProperties;
+import me.test.minio.configurer.oss.ParallelLister;
+import me.test.minio.configurer.oss.ParallelRangeDownloader;
 import me.test.minio.configurer.s3.v1.config.AwsProperties;
+import me.test.minio.configurer.s3.v1.config.ValidationPolicy;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static me.test.minio.configurer.s3.v1.BucketAndObjectValidator.*;
 
@@ -39,8 +54,27 @@ public class S3Utils {
 
     private AmazonS3 s3Client;
 
-    public S3Utils(AwsProperties awsProperties) {
+    private ParallelRangeDownloader rangeDownloader;
+
+    private BatchDeleter batchDeleter;
+
+    private PagedLister pagedLister;
+
+    private ParallelLister parallelLister;
+
+    /**
+     * 本地对象清单索引，未配置 aws.inventory-dir 时为 null
+     */
+    private ObjectInventory inventory;
+
+    /**
+     * 桶与对象元数据缓存，与 MinioTemplate 共用，未启用 MinIO 时单独创建
+     */
+    private final ObjectMetadataCache metadataCache;
+
+    public S3Utils(AwsProperties awsProperties, ObjectProvider<ObjectMetadataCache> metadataCache) {
         this.awsProperties = awsProperties;
+        this.metadataCache = metadataCache.getIfAvailable(() -> new ObjectMetadataCache(new OssProperties()));
     }
 
     @PostConstruct
@@ -53,6 +87,33 @@ public class S3Utils {
                 // path-style bucket naming is highly recommended
         builder.setPathStyleAccessEnabled(true);
         s3Client = builder.build();
+        rangeDownloader = new ParallelRangeDownloader(awsProperties.getDownloadPartSize(),
+                awsProperties.getDownloadConcurrency(), awsProperties.getDownloadConcurrency());
+        batchDeleter = new BatchDeleter(awsProperties.getDeleteThreads());
+        pagedLister = new PagedLister(1);
+        parallelLister = new ParallelLister(awsProperties.getListConcurrency(), awsProperties.getListSplitDepth());
+        if (awsProperties.getInventoryDir() != null) {
+            inventory = new ObjectInventory(new File(awsProperties.getInventoryDir()), awsProperties.getInventoryCompactThreshold());
+        }
+    }
+
+    @PreDestroy
+    @SneakyThrows
+    public void destroy() {
+        rangeDownloader.shutdown();
+        batchDeleter.shutdown();
+        pagedLister.shutdown();
+        parallelLister.shutdown();
+        if (inventory != null) {
+            inventory.close();
+        }
+    }
+
+    /**
+     * 本地对象清单索引，未配置 aws.inventory-dir 时为 null
+     */
+    public ObjectInventory getInventory() {
+        return inventory;
     }
 
     /**
@@ -61,39 +122,191 @@ public class S3Utils {
      */
     @SneakyThrows
     public void createBucket(String bucketName) {
-        if(checkBucketExistence(s3Client, bucketName)){
+        if(!bucketExists(bucketName)){
             // create the bucket - used for subsequent demo operations
             s3Client.createBucket(bucketName);
+            metadataCache.putBucket(awsProperties.getEndPoint(), bucketName);
+        }
+
+    }
+
+    /**
+     * 桶是否存在，STRICT 时直接请求，否则优先使用缓存
+     * @param bucketName
+     */
+    private boolean bucketExists(String bucketName) {
+        if (awsProperties.getValidation() == ValidationPolicy.STRICT) {
+            return checkBucketExistence(s3Client, bucketName);
         }
+        return metadataCache.bucketExists(awsProperties.getEndPoint(), bucketName, () -> checkBucketExistence(s3Client, bucketName));
+    }
 
+    /**
+     * 操作前校验桶，NONE 时不校验
+     * @param bucketName
+     */
+    private boolean validateBucket(String bucketName) {
+        return awsProperties.getValidation() == ValidationPolicy.NONE || bucketExists(bucketName);
     }
 
     /**
-     * 清空并且删除桶
+     * 写操作前校验对象，只在 STRICT 时校验
+     * <p>
+     * CACHED 时不查询存在性：写入不依赖对象是否存在。
      * @param bucketName
+     * @param key
+     * @param strict STRICT 时执行的校验
+     */
+    private void validateObject(String bucketName, String key, Runnable strict) {
+        if (awsProperties.getValidation() == ValidationPolicy.STRICT) {
+            strict.run();
+        }
+    }
+
+    /**
+     * 清空并且删除桶，有对象删除失败时保留桶
+     * @param bucketName
+     * @return 删除结果
      */
     @SneakyThrows
-    public void emptyAndDeleteBucket(String bucketName) {
-        if(checkBucketExistence(s3Client, bucketName)){
-            // delete all bucket content
-            if (BucketVersioningConfiguration.OFF.equals(s3Client.getBucketVersioningConfiguration(bucketName).getStatus())) {
-                // no versioning, so delete all objects
-                for (S3ObjectSummary summary : s3Client.listObjects(bucketName).getObjectSummaries()) {
-                    System.out.println(String.format("Deleting object [%s/%s]", bucketName, summary.getKey()));
-                    s3Client.deleteObject(bucketName, summary.getKey());
+    public BatchDeleter.Report emptyAndDeleteBucket(String bucketName) {
+        if(!validateBucket(bucketName)){
+            return new BatchDeleter.Report();
+        }
+        BatchDeleter.Report report;
+        // delete all bucket content
+        if (BucketVersioningConfiguration.OFF.equals(s3Client.getBucketVersioningConfiguration(bucketName).getStatus())) {
+            // no versioning, so delete all objects
+            report = deleteObjects(bucketName, listAllObjects(bucketName), null);
+        } else {
+            // versioning was enabled, so delete all versions
+            report = deleteObjects(bucketName, listAllVersions(bucketName), null);
+        }
+        if (!report.getFailures().isEmpty()) {
+            log.warn(String.format("Bucket [%s] is not empty, %d objects failed to delete", bucketName, report.getFailures().size()));
+            return report;
+        }
+
+        // delete the bucket
+        s3Client.deleteBucket(bucketName);
+        metadataCache.invalidateBucket(awsProperties.getEndPoint(), bucketName);
+        if (inventory != null) {
+            // 版本删除不逐个记入索引，桶删除后整体清空
+            inventory.rebuild(bucketName, Stream.empty());
+        }
+        return report;
+    }
+
+    /**
+     * 按 1000 个一批并发删除对象或版本
+     * @param bucketName
+     * @param keys 待删除的对象，versionId 为空时删除对象本身
+     * @param listener 逐个对象的结果回调，可为 null
+     * @return 删除结果
+     */
+    public BatchDeleter.Report deleteObjects(String bucketName, Iterator<DeleteObjectsRequest.KeyVersion> keys, BatchDeleter.Listener listener) {
+        String bucket = Optional.ofNullable(bucketName).orElse(awsProperties.getBucket());
+        return batchDeleter.delete(keys, S3Utils::describe, batch -> {
+            try {
+                s3Client.deleteObjects(new DeleteObjectsRequest(bucket).withKeys(batch).withQuiet(true));
+                unindexObjects(bucket, batch, Collections.emptyMap());
+                return Collections.emptyMap();
+            } catch (MultiObjectDeleteException e) {
+                Map<String, String> errors = new HashMap<>(e.getErrors().size());
+                for (MultiObjectDeleteException.DeleteError error : e.getErrors()) {
+                    errors.put(describe(new DeleteObjectsRequest.KeyVersion(error.getKey(), error.getVersionId())), error.getCode() + ": " + error.getMessage());
                 }
-            } else {
-                // versioning was enabled, so delete all versions
-                for (S3VersionSummary summary : s3Client.listVersions(bucketName, null).getVersionSummaries()) {
-                    System.out.println(String.format("Deleting version [%s/%s/%s]", bucketName, summary.getKey(), summary.getVersionId()));
-                    s3Client.deleteVersion(bucketName, summary.getKey(), summary.getVersionId());
+                Map<DeleteObjectsRequest.KeyVersion, String> failed = new HashMap<>(errors.size());
+                for (DeleteObjectsRequest.KeyVersion key : batch) {
+                    String error = errors.get(describe(key));
+                    if (error != null) {
+                        failed.put(key, error);
+                    }
                 }
+                unindexObjects(bucket, batch, failed);
+                return failed;
             }
+        }, listener);
+    }
 
-            // delete the bucket
-            s3Client.deleteBucket(bucketName);
+    /**
+     * 从对象清单中移除删除成功的对象，删除指定版本时对象可能仍在，不移除
+     */
+    private void unindexObjects(String bucketName, List<DeleteObjectsRequest.KeyVersion> batch, Map<DeleteObjectsRequest.KeyVersion, String> failed) {
+        if (inventory == null) {
+            return;
         }
+        for (DeleteObjectsRequest.KeyVersion key : batch) {
+            if (key.getVersion() == null && !failed.containsKey(key)) {
+                inventory.remove(bucketName, key.getKey());
+            }
+        }
+    }
+
+    /**
+     * 写入后记入对象清单
+     */
+    private void indexObject(String bucketName, String key, long size, String etag) {
+        if (inventory != null) {
+            inventory.put(bucketName, new ObjectSummary(key, size, etag, System.currentTimeMillis()));
+        }
+    }
+
+    private static String describe(DeleteObjectsRequest.KeyVersion key) {
+        return key.getVersion() == null ? key.getKey() : key.getKey() + "?versionId=" + key.getVersion();
+    }
+
+    /**
+     * 分页列举桶内全部对象，按需请求下一页
+     * @param bucketName
+     */
+    private Iterator<DeleteObjectsRequest.KeyVersion> listAllObjects(String bucketName) {
+        return new AbstractIterator<DeleteObjectsRequest.KeyVersion>() {
+            private ListObjectsV2Result page;
+            private Iterator<S3ObjectSummary> summaries = Collections.emptyIterator();
+
+            @Override
+            protected DeleteObjectsRequest.KeyVersion computeNext() {
+                while (!summaries.hasNext()) {
+                    if (page != null && !page.isTruncated()) {
+                        return endOfData();
+                    }
+                    page = s3Client.listObjectsV2(new ListObjectsV2Request().withBucketName(bucketName)
+                            .withMaxKeys(BatchDeleter.MAX_BATCH_SIZE)
+                            .withContinuationToken(page == null ? null : page.getNextContinuationToken()));
+                    summaries = page.getObjectSummaries().iterator();
+                }
+                return new DeleteObjectsRequest.KeyVersion(summaries.next().getKey());
+            }
+        };
+    }
 
+    /**
+     * 分页列举桶内全部版本（含删除标记），按需请求下一页
+     * @param bucketName
+     */
+    private Iterator<DeleteObjectsRequest.KeyVersion> listAllVersions(String bucketName) {
+        return new AbstractIterator<DeleteObjectsRequest.KeyVersion>() {
+            private VersionListing page;
+            private Iterator<S3VersionSummary> summaries = Collections.emptyIterator();
+
+            @Override
+            protected DeleteObjectsRequest.KeyVersion computeNext() {
+                while (!summaries.hasNext()) {
+                    if (page == null) {
+                        page = s3Client.listVersions(new ListVersionsRequest().withBucketName(bucketName)
+                                .withMaxResults(BatchDeleter.MAX_BATCH_SIZE));
+                    } else if (page.isTruncated()) {
+                        page = s3Client.listNextBatchOfVersions(page);
+                    } else {
+                        return endOfData();
+                    }
+                    summaries = page.getVersionSummaries().iterator();
+                }
+                S3VersionSummary summary = summaries.next();
+                return new DeleteObjectsRequest.KeyVersion(summary.getKey(), summary.getVersionId());
+            }
+        };
     }
 
     /**
@@ -107,11 +320,13 @@ public class S3Utils {
         bucketName = Optional.ofNullable(bucketName).orElse(awsProperties.getBucket());
         //自动创建桶
         createBucket(bucketName);
-        checkObjectExistence(s3Client, bucketName, key);
+        String bucket = bucketName;
+        validateObject(bucket, key, () -> checkObjectExistence(s3Client, bucket, key));
         //创建元数据对象
         ObjectMetadata metadata = new ObjectMetadata();
         metadata.setContentLength(content.length());
-        s3Client.putObject(bucketName, key, new StringInputStream( content ), metadata);
+        PutObjectResult result = s3Client.putObject(bucketName, key, new StringInputStream( content ), metadata);
+        indexObject(bucketName, key, content.length(), result.getETag());
     }
 
     /**
@@ -135,11 +350,12 @@ public class S3Utils {
         bucketName = Optional.ofNullable(bucketName).orElse(awsProperties.getBucket());
         //自动创建桶
         createBucket(bucketName);
-        checkObjectExistence(s3Client, awsProperties.getBucket(), key);
+        validateObject(awsProperties.getBucket(), key, () -> checkObjectExistence(s3Client, awsProperties.getBucket(), key));
         //创建元数据对象
         ObjectMetadata metadata = new ObjectMetadata();
         metadata.setContentLength(file.getSize());
-        s3Client.putObject(awsProperties.getBucket(), key, file.getInputStream(), metadata);
+        PutObjectResult result = s3Client.putObject(awsProperties.getBucket(), key, file.getInputStream(), metadata);
+        indexObject(awsProperties.getBucket(), key, file.getSize(), result.getETag());
     }
 
     /**
@@ -150,7 +366,7 @@ public class S3Utils {
     @SneakyThrows
     public void readObject(String bucketName, String key) {
         bucketName = Optional.ofNullable(bucketName).orElse(awsProperties.getBucket());
-        if(checkBucketExistence(s3Client, bucketName)){
+        if(validateBucket(bucketName)){
             // read the object from the demo bucket
             S3Object object = s3Client.getObject(bucketName, key);
             //流式获取文件内容
@@ -193,9 +409,11 @@ public class S3Utils {
     @SneakyThrows
     public void updateObject(String bucketName, String key, final MultipartFile file) {
         bucketName = Optional.ofNullable(bucketName).orElse(awsProperties.getBucket());
-        if(checkBucketExistence(s3Client, bucketName)){
-            checkObjectContent(s3Client, bucketName, key);
-            s3Client.putObject(bucketName, key, file.getInputStream(), null);
+        if(validateBucket(bucketName)){
+            String bucket = bucketName;
+            validateObject(bucket, key, () -> checkObjectContent(s3Client, bucket, key));
+            PutObjectResult result = s3Client.putObject(bucketName, key, file.getInputStream(), null);
+            indexObject(bucketName, key, file.getSize(), result.getETag());
         }
 
     }
@@ -219,9 +437,13 @@ public class S3Utils {
     @SneakyThrows
     public void deleteObject(String bucketName, String key) {
         bucketName = Optional.ofNullable(bucketName).orElse(awsProperties.getBucket());
-        if(checkBucketExistence(s3Client, bucketName)){
-            checkObjectExistence(s3Client, bucketName, key);
+        if(validateBucket(bucketName)){
+            String bucket = bucketName;
+            validateObject(bucket, key, () -> checkObjectExistence(s3Client, bucket, key));
             s3Client.deleteObject(bucketName, key);
+            if (inventory != null) {
+                inventory.remove(bucketName, key);
+            }
         }
 
     }
@@ -245,7 +467,8 @@ public class S3Utils {
     @SneakyThrows
     public void createLargeObject( String bucketName, String key, String filePath) {
         bucketName = Optional.ofNullable(bucketName).orElse(awsProperties.getBucket());
-        checkObjectMetadata(s3Client, bucketName, key);
+        String bucket = bucketName;
+        validateObject(bucket, key, () -> checkObjectMetadata(s3Client, bucket, key));
 
         TransferManager transferManager = TransferManagerBuilder.standard()
                 .withS3Client(s3Client)
@@ -256,7 +479,9 @@ public class S3Utils {
             System.out.println("Percent transferred: " + upload.getProgress().getPercentTransferred());
             Thread.sleep(1000);
         }
+        UploadResult result = upload.waitForUploadResult();
         transferManager.shutdownNow(false);
+        indexObject(bucketName, key, new File(filePath).length(), result.getETag());
     }
 
     /**
@@ -324,7 +549,8 @@ public class S3Utils {
             // 第三步，完成上传，合并分段
             CompleteMultipartUploadRequest compRequest = new CompleteMultipartUploadRequest(bucketName, key,
                     initResponse.getUploadId(), partETags);
-            s3Client.completeMultipartUpload(compRequest);
+            CompleteMultipartUploadResult result = s3Client.completeMultipartUpload(compRequest);
+            indexObject(bucketName, key, size, result.getETag());
             //删除本地缓存文件
 //            toFile.delete();
         } catch (Exception e) {
@@ -355,34 +581,42 @@ public class S3Utils {
     }
 
     /**
-     * 下载大文件
+     * 下载大文件到临时文件
      * @param bucketName
      * @param key
      * @param fileNamePrefix
      */
     @SneakyThrows
-    public void downloadLargeFile(String bucketName, String key, String fileNamePrefix) {
-        bucketName = Optional.ofNullable(bucketName).orElse(awsProperties.getBucket());
-        checkObjectMetadata(s3Client, bucketName, key);
-
+    public File downloadLargeFile(String bucketName, String key, String fileNamePrefix) {
         // file will be placed in temp dir with .tmp extension
-        File file = File.createTempFile(fileNamePrefix, null);
-
-        TransferManager transferManager = TransferManagerBuilder.standard()
-                .withS3Client(s3Client)
-                .build();
-
-        // download the object to file
-        Download download = transferManager.download(bucketName, key, file);
+        return downloadLargeFile(bucketName, key, File.createTempFile(fileNamePrefix, null));
+    }
 
-        while (!download.isDone()) {
-            log.info("Download state: " + download.getState().toString());
-            log.info("Percent transferred: " + download.getProgress().getPercentTransferred());
-            Thread.sleep(1000);
-        }
-        transferManager.shutdownNow(false);
-        log.info("Download is finished, content is in the following file.");
+    /**
+     * 按区间并发下载大文件，中断后再次下载到同一文件时从断点继续
+     * @param bucketName
+     * @param key
+     * @param file
+     */
+    public File downloadLargeFile(String bucketName, String key, File file) {
+        String bucket = Optional.ofNullable(bucketName).orElse(awsProperties.getBucket());
+        // 下载需要最新的大小与 ETag，这一次 HEAD 同时完成对象校验
+        ObjectMetadata metadata = s3Client.getObjectMetadata(bucket, key);
+        long begin = System.currentTimeMillis();
+        // 各区间限定为 HEAD 时的 ETag，下载期间对象被覆盖时不会把新旧内容拼在一起
+        rangeDownloader.download(metadata.getContentLength(), metadata.getETag(), (offset, length) -> {
+            S3Object object = s3Client.getObject(new GetObjectRequest(bucket, key)
+                    .withRange(offset, offset + length - 1)
+                    .withMatchingETagConstraint(metadata.getETag()));
+            // 不满足 ETag 约束时 SDK 返回 null
+            if (object == null) {
+                throw new IllegalStateException(String.format("Object [%s/%s] changed during download", bucket, key));
+            }
+            return object.getObjectContent();
+        }, file);
+        log.info("Download is finished in {} ms, content is in the following file.", System.currentTimeMillis() - begin);
         log.info(file.getAbsolutePath());
+        return file;
     }
 
     /**
@@ -416,51 +650,96 @@ public class S3Utils {
     }
 
     /**
-     * 获取对象列表分页
+     * 递归列举对象，按页请求并预取下一页，内存与桶大小无关。用完或提前结束时应关闭返回的 Stream
      * @param bucketName
+     * @param prefix 前缀，可为 null
+     * @param pageSize 每页数量，最大 1000，为 null 时使用 aws.list-page-size
      */
-    @SneakyThrows
-    public List<String> listObjectsByPages(String bucketName) {
-        bucketName = Optional.ofNullable(bucketName).orElse(awsProperties.getBucket());
-        List<String> keys = new ArrayList<String>();
-        int pages = 1;
-
-        ListObjectsRequest listObjectsRequest = new ListObjectsRequest();
-        listObjectsRequest.setBucketName(bucketName);
-        listObjectsRequest.setMaxKeys(1);
-        ObjectListing objectListing = s3Client.listObjects(listObjectsRequest);
-        addKeys( keys, objectListing.getObjectSummaries() );
-        while (objectListing.isTruncated()) {
-            ++pages;
-            listObjectsRequest.setMarker( keys.get( keys.size() - 1 ) );
-            objectListing = s3Client.listObjects(listObjectsRequest);
-            addKeys( keys, objectListing.getObjectSummaries() );
+    public Stream<ObjectSummary> listObjectsStream(String bucketName, String prefix, Integer pageSize) {
+        String bucket = Optional.ofNullable(bucketName).orElse(awsProperties.getBucket());
+        int maxKeys = PagedLister.pageSize(pageSize == null ? awsProperties.getListPageSize() : pageSize);
+        return pagedLister.stream(token -> {
+            ListObjectsV2Result result = listPage(bucket, prefix, null, token, maxKeys);
+            return new PagedLister.Page<>(summaries(result), result.isTruncated() ? result.getNextContinuationToken() : null);
+        });
+    }
+
+    /**
+     * 按前缀分区并行列举，适合对象数量很大的桶。用完或提前结束时应关闭返回的 Stream
+     * @param bucketName
+     * @param prefix 前缀，可为 null
+     * @param ordered 是否按对象名有序返回
+     */
+    public Stream<ObjectSummary> listObjectsParallel(String bucketName, String prefix, boolean ordered) {
+        String bucket = Optional.ofNullable(bucketName).orElse(awsProperties.getBucket());
+        return parallelLister.list(Collections.singletonList(new ParallelLister.ListingSource() {
+            @Override
+            public ParallelLister.DelimitedPage listDelimited(String prefix, String token) {
+                ListObjectsV2Result result = listPage(bucket, prefix, ParallelLister.DELIMITER, token, PagedLister.MAX_PAGE_SIZE);
+                return new ParallelLister.DelimitedPage(summaries(result), result.getCommonPrefixes(),
+                        result.isTruncated() ? result.getNextContinuationToken() : null);
+            }
+
+            @Override
+            public PagedLister.Page<ObjectSummary> list(String prefix, String token) {
+                ListObjectsV2Result result = listPage(bucket, prefix, null, token, PagedLister.MAX_PAGE_SIZE);
+                return new PagedLister.Page<>(summaries(result), result.isTruncated() ? result.getNextContinuationToken() : null);
+            }
+        }), prefix, ordered);
+    }
+
+    /**
+     * 按全量并行扫描重建桶的对象清单索引
+     * @param bucketName
+     * @return 桶内对象数量
+     */
+    public long rebuildInventory(String bucketName) {
+        if (inventory == null) {
+            throw new IllegalStateException("aws.inventory-dir is not configured");
         }
+        String bucket = Optional.ofNullable(bucketName).orElse(awsProperties.getBucket());
+        return inventory.rebuild(bucket, listObjectsParallel(bucket, null, true));
+    }
 
-        checkKeyListing( "ListObjects", keys, pages, bucketName );
-        return keys;
+    private ListObjectsV2Result listPage(String bucketName, String prefix, String delimiter, String token, int maxKeys) {
+        return s3Client.listObjectsV2(new ListObjectsV2Request().withBucketName(bucketName)
+                .withPrefix(prefix).withDelimiter(delimiter).withMaxKeys(maxKeys).withContinuationToken(token));
+    }
+
+    private static List<ObjectSummary> summaries(ListObjectsV2Result result) {
+        List<ObjectSummary> items = new ArrayList<>(result.getObjectSummaries().size());
+        for (S3ObjectSummary summary : result.getObjectSummaries()) {
+            items.add(new ObjectSummary(summary.getKey(), summary.getSize(), summary.getETag(),
+                    summary.getLastModified() == null ? 0 : summary.getLastModified().getTime()));
+        }
+        return items;
     }
 
     /**
-     * @param keys
-     * @param objectSummaries
+     * 获取对象列表分页
+     * @param bucketName
      */
-    private void addKeys(List<String> keys, List<S3ObjectSummary> objectSummaries) {
-        for (S3ObjectSummary objectSummary : objectSummaries) {
-            keys.add(objectSummary.getKey());
+    public List<String> listObjectsByPages(String bucketName) {
+        bucketName = Optional.ofNullable(bucketName).orElse(awsProperties.getBucket());
+        List<String> keys;
+        try (Stream<ObjectSummary> objects = listObjectsStream(bucketName, null, null)) {
+            keys = objects.map(ObjectSummary::getKey).collect(Collectors.toList());
         }
+        checkKeyListing( "ListObjects", keys, bucketName );
+        return keys;
     }
 
     /**
      * @param operation
      * @param keys
-     * @param pages
      * @param bucketName
      */
-    private void checkKeyListing(String operation, List<String> keys, int pages, String bucketName) {
-        log.info(operation + " found " + keys.size() + " objects on " + pages + " pages in " + bucketName);
-        for (String key : keys) {
-            log.info(key);
+    private void checkKeyListing(String operation, List<String> keys, String bucketName) {
+        log.info(operation + " found " + keys.size() + " objects in " + bucketName);
+        if (log.isDebugEnabled()) {
+            for (String key : keys) {
+                log.debug(key);
+            }
         }
     }
 
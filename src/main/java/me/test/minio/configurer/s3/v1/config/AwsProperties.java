@@ -13,4 +13,40 @@ public class AwsProperties {
     private String region;
     private String bucket;
     private Long minPartSize;
+    /**
+     * 读写前的校验策略
+     */
+    private ValidationPolicy validation = ValidationPolicy.CACHED;
+    /**
+     * 并发下载时每个区间的大小
+     */
+    private Long downloadPartSize = 16L * 1024 * 1024;
+    /**
+     * 并发下载时单个文件同时请求的区间数
+     */
+    private Integer downloadConcurrency = 8;
+    /**
+     * 批量删除的并发批次数
+     */
+    private Integer deleteThreads = 4;
+    /**
+     * 分页列举的每页数量，最大 1000
+     */
+    private Integer listPageSize = 1000;
+    /**
+     * 并行列举时同时进行的列举请求数
+     */
+    private Integer listConcurrency = 8;
+    /**
+     * 并行列举时按 "/" 向下发现前缀的层数
+     */
+    private Integer listSplitDepth = 2;
+    /**
+     * 本地对象清单索引目录，未配置时不启用
+     */
+    private String inventoryDir;
+    /**
+     * 对象清单日志记录数超过该值时合并为新快照
+     */
+    private Integer inventoryCompactThreshold = 100000;
 }
\ No newline at end of file
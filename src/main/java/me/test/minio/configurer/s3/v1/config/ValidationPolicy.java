@@ -0,0 +1,23 @@
+package me.test.minio.configurer.s3.v1.config;
+
+/**
+ * S3Utils 读写前的校验策略
+ *
+ * @author test
+ */
+public enum ValidationPolicy {
+    /**
+     * 不做前置校验，桶或对象不存在时由请求本身报错
+     */
+    NONE,
+
+    /**
+     * 桶存在性使用元数据缓存；写对象前不校验
+     */
+    CACHED,
+
+    /**
+     * 每次都请求服务端校验，包括读取对象内容，用于测试
+     */
+    STRICT,
+}
@@ -0,0 +1,251 @@
+package me.test.minio.controller;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.RequiredArgsConstructor;
+import me.test.minio.configurer.oss.MinioTemplate;
+import me.test.minio.configurer.oss.ObjectMetadataCache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 文件下载，支持 Range（含多段）与 If-None-Match / If-Modified-Since 条件请求，以及重定向到预签名地址
+ *
+ * @author test
+ */
+@RestController
+@RequiredArgsConstructor
+public class DownloadController {
+
+    /**
+     * 转发缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final MinioTemplate minioTemplate;
+
+    /**
+     * 下载对象，每个区间映射为一次带 offset/length 的 GetObject，边读边写，不整体缓存
+     * <p>
+     * 大小、ETag 等取自元数据缓存，每次 GetObject 都限定为该 ETag；缓存已过期（对象被覆盖）时
+     * 第一次读取即返回 412，此时尚未写出响应，清除缓存后按最新元数据重新处理一次。
+     *
+     * @param bucket   桶名
+     * @param request  请求
+     * @param response 响应
+     */
+    @GetMapping("/download/{bucket}/**")
+    public void download(@PathVariable String bucket, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String objectName = objectName(request);
+        if (StrUtil.isBlank(objectName) || !minioTemplate.isDownloadAllowed(bucket)) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        if (!download(bucket, objectName, request, response)) {
+            response.reset();
+            if (!download(bucket, objectName, request, response)) {
+                response.reset();
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            }
+        }
+    }
+
+    /**
+     * @return 第一次读取时对象 ETag 已变化返回 false，此时尚未写出任何内容
+     */
+    private boolean download(String bucket, String objectName, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ObjectMetadataCache.ObjectMeta stat = minioTemplate.objectMeta(bucket, objectName);
+        if (stat == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return true;
+        }
+
+        String etag = "\"" + stat.getEtag() + "\"";
+        long lastModified = stat.getLastModified();
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return true;
+        }
+
+        long size = stat.getSize();
+        String contentType = StrUtil.blankToDefault(stat.getContentType(), MimeTypeUtils.APPLICATION_OCTET_STREAM_VALUE);
+        // HEAD 也由 @GetMapping 处理，响应头全部来自元数据缓存，不读取对象；Range 只对 GET 有意义
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            response.setContentType(contentType);
+            response.setContentLengthLong(size);
+            return true;
+        }
+        List<HttpRange> ranges;
+        try {
+            ranges = rangesOf(request, etag);
+        } catch (IllegalArgumentException e) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            return true;
+        }
+
+        if (ranges.isEmpty()) {
+            try (InputStream in = minioTemplate.getObject(bucket, objectName, null, null, stat.getEtag())) {
+                if (in == null) {
+                    return false;
+                }
+                response.setContentType(contentType);
+                response.setContentLengthLong(size);
+                copy(in, response.getOutputStream());
+            }
+            return true;
+        }
+
+        long[][] bounds = new long[ranges.size()][];
+        for (int i = 0; i < ranges.size(); i++) {
+            long start = ranges.get(i).getRangeStart(size);
+            long end = ranges.get(i).getRangeEnd(size);
+            if (start >= size || start > end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return true;
+            }
+            bounds[i] = new long[]{start, end};
+        }
+
+        if (bounds.length == 1) {
+            long start = bounds[0][0];
+            long end = bounds[0][1];
+            try (InputStream in = minioTemplate.getObject(bucket, objectName, start, end - start + 1, stat.getEtag())) {
+                if (in == null) {
+                    return false;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setContentType(contentType);
+                response.setContentLengthLong(end - start + 1);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+                copy(in, response.getOutputStream());
+            }
+            return true;
+        }
+
+        // 多段区间，multipart/byteranges；已写出部分内容后对象才变化的，只能中断响应
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        OutputStream out = null;
+        for (long[] bound : bounds) {
+            long start = bound[0];
+            long end = bound[1];
+            try (InputStream in = minioTemplate.getObject(bucket, objectName, start, end - start + 1, stat.getEtag())) {
+                if (in == null) {
+                    if (out == null) {
+                        return false;
+                    }
+                    throw new IOException("object changed during download: " + bucket + "/" + objectName);
+                }
+                if (out == null) {
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setContentType("multipart/byteranges; boundary=" + boundary);
+                    out = response.getOutputStream();
+                }
+                out.write(("\r\n--" + boundary + "\r\n"
+                        + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                        + HttpHeaders.CONTENT_RANGE + ": bytes " + start + "-" + end + "/" + size + "\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                copy(in, out);
+            }
+        }
+        out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return true;
+    }
+
+    /**
+     * 重定向到对象的预签名地址，地址在有效期内保持不变，客户端可以使用固定链接
+     *
+     * @param bucket   桶名
+     * @param request  请求
+     * @param response 响应
+     */
+    @GetMapping("/redirect/{bucket}/**")
+    public void redirect(@PathVariable String bucket, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String objectName = objectName(request);
+        if (StrUtil.isBlank(objectName) || !minioTemplate.isDownloadAllowed(bucket)) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        response.setStatus(HttpStatus.FOUND.value());
+        response.setHeader(HttpHeaders.LOCATION, minioTemplate.getPresignedObjectUrl(bucket, objectName));
+    }
+
+    /**
+     * 从请求路径中取出 {bucket}/ 之后的对象名
+     */
+    private static String objectName(HttpServletRequest request) {
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        return PATH_MATCHER.extractPathWithinPattern(pattern, path);
+    }
+
+    /**
+     * If-None-Match 优先，其次 If-Modified-Since（秒级精度）
+     */
+    private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if ("*".equals(tag) || etag.equals(StrUtil.removePrefix(tag, "W/"))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * 解析 Range，If-Range 与当前 ETag 不一致时忽略 Range，返回完整内容
+     */
+    private static List<HttpRange> rangesOf(HttpServletRequest request, String etag) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range == null || (ifRange != null && !etag.equals(ifRange.trim()))) {
+            return Collections.emptyList();
+        }
+        return HttpRange.parseRanges(range);
+    }
+
+    /**
+     * 使用线程内复用的固定大小缓冲区转发
+     */
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = BUFFER.get();
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+    }
+}
@@ -1,18 +1,25 @@
 package me.test.minio.controller;
 
 import cn.hutool.core.lang.Assert;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONArray;
 import cn.hutool.json.JSONObject;
 import com.google.common.collect.ImmutableMap;
 import lombok.RequiredArgsConstructor;
 import me.test.minio.service.UploadService;
 import me.test.minio.configurer.oss.MinioTemplate;
+import me.test.minio.configurer.oss.MultipartMergeExecutor;
+import me.test.minio.configurer.oss.MultipartUploadSweeper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -39,14 +46,70 @@ public class IndexController {
         String md5 = requestParam.getStr("md5", "");
         // 分片数量
         Integer partCount = requestParam.getInt("partCount", 1);
+        // 文件大小，提供时由服务端计算分片方案
+        Long fileSize = requestParam.getLong("fileSize");
+        // 客户端上行带宽（字节/秒）
+        Long bandwidth = requestParam.getLong("bandwidth");
+        // 计算分片 md5 所用的分片大小，与 fileSize、partMd5s 一起提供
+        Long partSize = requestParam.getLong("partSize");
 
-        //TODO::业务判断+秒传判断
+        // 分片 md5，已存在的分片无需上传
+        JSONArray partMd5Array = requestParam.getJSONArray("partMd5s");
+        List<String> partMd5s = partMd5Array == null ? null : partMd5Array.toList(String.class);
 
-        Map<String, Object> result = uploadService.initMultiPartUpload(path, filename, partCount, contentType);
+        // 秒传命中时是否复制为新对象
+        Boolean copy = requestParam.getBool("copy", false);
+
+        //TODO::业务判断
+        boolean hashed = StrUtil.isNotBlank(md5) && fileSize != null;
+        if (hashed) {
+            Map<String, Object> instant = uploadService.instantUpload(path, filename, md5, fileSize, copy);
+            if (instant != null) {
+                return new ResponseEntity<>(instant, HttpStatus.OK);
+            }
+        }
+
+        Map<String, Object> result;
+        try {
+            if (fileSize != null) {
+                result = uploadService.initMultiPartUpload(path, filename, fileSize, bandwidth, partSize, contentType, partMd5s);
+            } else {
+                result = uploadService.initMultiPartUpload(path, filename, partCount, contentType, partMd5s);
+            }
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(ImmutableMap.of("success", false, "message", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
+        if (!result.containsKey("uploadUrls")) {
+            // 分片 md5 与服务端分片方案不一致，未创建上传，按返回的 partSize 重新计算后再次初始化
+            return new ResponseEntity<>(result, HttpStatus.CONFLICT);
+        }
+        if (hashed && result.containsKey("uploadId")) {
+            uploadService.bindContentHash((String) result.get("uploadId"), md5, fileSize);
+        }
 
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
 
+    /**
+     * 按需获取分片上传地址
+     *
+     * @param requestParam 用户参数
+     * @return /
+     */
+    @PostMapping("/multipart/urls")
+    public ResponseEntity<Object> partUploadUrls(@RequestBody JSONObject requestParam) {
+        String uploadId = requestParam.getStr("uploadId");
+        Integer from = requestParam.getInt("from", 1);
+        Integer to = requestParam.getInt("to", from);
+        Assert.notNull(uploadId, "uploadId must not be null");
+        List<Object> uploadUrls = uploadService.getPartUploadUrls(uploadId, from, to);
+        if (uploadUrls == null) {
+            return new ResponseEntity<>(ImmutableMap.of("success", false), HttpStatus.NOT_FOUND);
+        }
+
+        return new ResponseEntity<>(ImmutableMap.of("uploadUrls", uploadUrls), HttpStatus.OK);
+    }
+
     /**
      * 完成上传
      *
@@ -62,11 +125,92 @@ public class IndexController {
         String uploadId = requestParam.getStr("uploadId");
         Assert.notNull(objectName, "objectName must not be null");
         Assert.notNull(uploadId, "uploadId must not be null");
-        boolean result = uploadService.mergeMultipartUpload(objectName, uploadId);
+        // 各分片 PUT 返回的 ETag，提供时无需再查询已上传分片
+        Map<Integer, String> partEtags = null;
+        JSONArray parts = requestParam.getJSONArray("parts");
+        if (parts != null) {
+            partEtags = new LinkedHashMap<>(parts.size());
+            for (int i = 0; i < parts.size(); i++) {
+                JSONObject part = parts.getJSONObject(i);
+                Integer partNumber = part.getInt("partNumber");
+                Assert.notNull(partNumber, "partNumber must not be null");
+                Assert.isNull(partEtags.put(partNumber, part.getStr("etag")), "duplicate partNumber {}", partNumber);
+            }
+        }
+        // 异步合并，立即返回任务标识，通过 /multipart/complete/{jobId} 查询结果
+        if (requestParam.getBool("async", false)) {
+            MultipartMergeExecutor.MergeJob job = uploadService.mergeMultipartUploadAsync(objectName, uploadId, partEtags);
+            if (job == null) {
+                return new ResponseEntity<>(ImmutableMap.of("success", false), HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+        }
+        boolean result = uploadService.mergeMultipartUpload(objectName, uploadId, partEtags);
+
+        return new ResponseEntity<>(ImmutableMap.of("success", result), HttpStatus.OK);
+    }
+
+    /**
+     * 查询异步合并任务
+     *
+     * @param jobId 任务标识
+     * @return /
+     */
+    @GetMapping("/multipart/complete/{jobId}")
+    public ResponseEntity<Object> completeStatus(@PathVariable String jobId) {
+        MultipartMergeExecutor.MergeJob job = uploadService.getMergeJob(jobId);
+        if (job == null) {
+            return new ResponseEntity<>(ImmutableMap.of("success", false), HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(job, HttpStatus.OK);
+    }
+
+    /**
+     * 分片上传完成回调，记录分片状态
+     *
+     * @param requestParam 用户参数
+     * @return /
+     */
+    @PostMapping("/multipart/part")
+    public ResponseEntity<Object> uploadedPart(@RequestBody JSONObject requestParam) {
+        String uploadId = requestParam.getStr("uploadId");
+        Integer partNumber = requestParam.getInt("partNumber");
+        Long size = requestParam.getLong("size", 0L);
+        String etag = requestParam.getStr("etag");
+        Assert.notNull(uploadId, "uploadId must not be null");
+        Assert.notNull(partNumber, "partNumber must not be null");
+        boolean result = uploadService.markPartUploaded(uploadId, partNumber, size, etag);
 
         return new ResponseEntity<>(ImmutableMap.of("success", result), HttpStatus.OK);
     }
 
+    /**
+     * 查询尚未上传的分片，用于断点续传
+     *
+     * @param uploadId 标识
+     * @return /
+     */
+    @GetMapping("/multipart/missing")
+    public ResponseEntity<Object> missingParts(@RequestParam String uploadId) {
+        return new ResponseEntity<>(ImmutableMap.of("missingParts", uploadService.listMissingParts(uploadId)), HttpStatus.OK);
+    }
+
+    @Autowired(required = false)
+    MultipartUploadSweeper sweeper;
+
+    /**
+     * 过期分片上传清理统计
+     *
+     * @return /
+     */
+    @GetMapping("/multipart/sweeper")
+    public ResponseEntity<Object> sweeperStats() {
+        if (sweeper == null) {
+            return new ResponseEntity<>(ImmutableMap.of("enabled", false), HttpStatus.OK);
+        }
+        return new ResponseEntity<>(sweeper.stats(), HttpStatus.OK);
+    }
+
     @Autowired
     MinioTemplate minioTemplate;
 
@@ -75,4 +219,17 @@ public class IndexController {
     public Object upload(MultipartFile file, String bucketName) throws IOException {
         return minioTemplate.putObject(file.getInputStream(), bucketName, file.getOriginalFilename());
     }
+
+    /**
+     * 流式上传，请求体即文件内容，边读边上传到 MinIO，不落临时文件
+     *
+     * @param request    请求
+     * @param filename   文件名
+     * @param bucketName 桶名
+     * @return /
+     */
+    @PutMapping("/upload/stream")
+    public Object uploadStream(HttpServletRequest request, @RequestParam String filename, @RequestParam(required = false) String bucketName) throws IOException {
+        return minioTemplate.putObjectStream(request.getInputStream(), request.getContentLengthLong(), bucketName, filename, request.getContentType());
+    }
 }
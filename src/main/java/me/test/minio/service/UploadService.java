@@ -1,5 +1,8 @@
 package me.test.minio.service;
 
+import me.test.minio.configurer.oss.MultipartMergeExecutor;
+
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -15,16 +18,100 @@ public interface UploadService {
      * @param filename    文件名
      * @param partCount   分片数量
      * @param contentType /
+     * @param partMd5s    分片 md5，提供时已存在的分片无需上传，可为空
      * @return /
      */
-    Map<String, Object> initMultiPartUpload(String path, String filename, Integer partCount, String contentType);
+    Map<String, Object> initMultiPartUpload(String path, String filename, Integer partCount, String contentType, List<String> partMd5s);
+
+    /**
+     * 分片上传初始化，由服务端根据文件大小计算分片方案
+     *
+     * @param path        路径
+     * @param filename    文件名
+     * @param fileSize    文件大小
+     * @param bandwidth   客户端上行带宽（字节/秒），可为空
+     * @param partSize    客户端计算分片 md5 所用的分片大小，提供分片 md5 时必填
+     * @param contentType /
+     * @param partMd5s    分片 md5，按服务端返回的分片方案计算，可为空
+     * @return /，分片 md5 与分片方案不一致时只返回分片方案（partSize、partCount），不创建上传
+     */
+    Map<String, Object> initMultiPartUpload(String path, String filename, Long fileSize, Long bandwidth, Long partSize, String contentType, List<String> partMd5s);
+
+    /**
+     * 秒传判断，文件已存在时直接返回对象，不再上传
+     *
+     * @param path     路径
+     * @param filename 文件名
+     * @param md5      文件 md5
+     * @param fileSize 文件大小
+     * @param copy     是否复制为新对象，否则直接返回已存在的对象
+     * @return 命中时返回结果，未命中返回 null
+     */
+    Map<String, Object> instantUpload(String path, String filename, String md5, Long fileSize, boolean copy);
+
+    /**
+     * 分片上传绑定文件摘要，合并成功后用于秒传
+     *
+     * @param uploadId 标识
+     * @param md5      文件 md5
+     * @param fileSize 文件大小
+     */
+    void bindContentHash(String uploadId, String md5, Long fileSize);
 
     /**
      * 完成分片上传
      *
      * @param objectName 文件名
      * @param uploadId 标识
+     * @param partEtags 分片序号 -> ETag，客户端提供时直接合并，可为空
+     * @return /
+     */
+     boolean mergeMultipartUpload(String objectName, String uploadId, Map<Integer, String> partEtags);
+
+    /**
+     * 异步完成分片上传
+     *
+     * @param objectName 文件名
+     * @param uploadId 标识
+     * @param partEtags 分片序号 -> ETag，可为空
+     * @return 合并任务，队列已满时返回 null
+     */
+    MultipartMergeExecutor.MergeJob mergeMultipartUploadAsync(String objectName, String uploadId, Map<Integer, String> partEtags);
+
+    /**
+     * 查询异步合并任务
+     *
+     * @param jobId 任务标识
+     * @return 合并任务，不存在时返回 null
+     */
+    MultipartMergeExecutor.MergeJob getMergeJob(String jobId);
+
+    /**
+     * 记录分片上传完成
+     *
+     * @param uploadId   标识
+     * @param partNumber 分片序号
+     * @param size       分片大小
+     * @param etag       分片 ETag
+     * @return /
+     */
+    boolean markPartUploaded(String uploadId, Integer partNumber, Long size, String etag);
+
+    /**
+     * 查询尚未上传的分片
+     *
+     * @param uploadId 标识
+     * @return 分片序号列表
+     */
+    List<Integer> listMissingParts(String uploadId);
+
+    /**
+     * 按需获取分片上传地址
+     *
+     * @param uploadId 标识
+     * @param from     起始分片序号
+     * @param to       结束分片序号（包含）
      * @return /
      */
-     boolean mergeMultipartUpload(String objectName, String uploadId);
+    List<Object> getPartUploadUrls(String uploadId, Integer from, Integer to);
 }
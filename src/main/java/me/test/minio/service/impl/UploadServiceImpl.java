@@ -4,10 +4,14 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import lombok.RequiredArgsConstructor;
 import me.test.minio.configurer.oss.MinioTemplate;
+import me.test.minio.configurer.oss.MultipartMergeExecutor;
+import me.test.minio.configurer.oss.MultipartPlan;
 import me.test.minio.service.UploadService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,13 +25,12 @@ public class UploadServiceImpl implements UploadService {
     @Autowired
     MinioTemplate minioTemplate;
 
+    @Autowired
+    MultipartMergeExecutor mergeExecutor;
+
     @Override
-    public Map<String, Object> initMultiPartUpload(String path, String filename, Integer partCount, String contentType) {
-        path = path.replaceAll("/+", "/");
-        if (path.indexOf("/") == 0) {
-            path = path.substring(1);
-        }
-        String filePath = path + "/" + filename;
+    public Map<String, Object> initMultiPartUpload(String path, String filename, Integer partCount, String contentType, List<String> partMd5s) {
+        String filePath = filePath(path, filename);
 
         Map<String, Object> result;
         // TODO::单文件上传可拆分，这里只做演示，可直接上传完成
@@ -35,14 +38,84 @@ public class UploadServiceImpl implements UploadService {
             String uploadObjectUrl = minioTemplate.getUploadObjectUrl(filePath);
             result = ImmutableMap.of("uploadUrls", ImmutableList.of(uploadObjectUrl));
         } else {
-            result = minioTemplate.initMultiPartUpload(filePath, partCount, contentType);
+            result = minioTemplate.initMultiPartUpload(filePath, partCount, contentType, partMd5s);
         }
 
         return result;
     }
 
     @Override
-    public boolean mergeMultipartUpload(String objectName, String uploadId) {
-        return minioTemplate.mergeMultipartUpload(objectName, uploadId);
+    public Map<String, Object> initMultiPartUpload(String path, String filename, Long fileSize, Long bandwidth, Long partSize, String contentType, List<String> partMd5s) {
+        MultipartPlan plan = minioTemplate.planMultipart(fileSize, bandwidth);
+        // 分片 md5 须按本次分片方案切分计算，否则每个分片都会校验失败；先返回方案，客户端按此重新计算
+        if (partMd5s != null && !partMd5s.isEmpty() && (partSize == null || partSize != plan.getPartSize())) {
+            return ImmutableMap.of("partSize", plan.getPartSize(), "partCount", plan.getPartCount());
+        }
+        Map<String, Object> result = new LinkedHashMap<>(initMultiPartUpload(path, filename, plan.getPartCount(), contentType, partMd5s));
+        result.put("partSize", plan.getPartSize());
+        result.put("partCount", plan.getPartCount());
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> instantUpload(String path, String filename, String md5, Long fileSize, boolean copy) {
+        String existing = minioTemplate.findByContentHash(md5, fileSize);
+        if (existing == null) {
+            return null;
+        }
+        String objectName = existing;
+        if (copy) {
+            objectName = filePath(path, filename);
+            if (!objectName.equals(existing)) {
+                minioTemplate.copyObject(existing, objectName);
+            }
+        }
+        return ImmutableMap.of("instant", true, "objectName", objectName);
+    }
+
+    @Override
+    public void bindContentHash(String uploadId, String md5, Long fileSize) {
+        minioTemplate.bindContentHash(uploadId, md5, fileSize);
+    }
+
+    @Override
+    public boolean mergeMultipartUpload(String objectName, String uploadId, Map<Integer, String> partEtags) {
+        return minioTemplate.mergeMultipartUpload(objectName, uploadId, partEtags);
+    }
+
+    @Override
+    public MultipartMergeExecutor.MergeJob mergeMultipartUploadAsync(String objectName, String uploadId, Map<Integer, String> partEtags) {
+        return mergeExecutor.submit(objectName, uploadId, partEtags);
+    }
+
+    @Override
+    public MultipartMergeExecutor.MergeJob getMergeJob(String jobId) {
+        return mergeExecutor.get(jobId);
+    }
+
+    @Override
+    public boolean markPartUploaded(String uploadId, Integer partNumber, Long size, String etag) {
+        return minioTemplate.markPartUploaded(uploadId, partNumber, size, etag);
+    }
+
+    @Override
+    public List<Integer> listMissingParts(String uploadId) {
+        return minioTemplate.listMissingParts(uploadId);
+    }
+
+    @Override
+    public List<Object> getPartUploadUrls(String uploadId, Integer from, Integer to) {
+        return minioTemplate.getPartUploadUrls(uploadId, from, to);
+    }
+
+    /**
+     * 拼接文件全路径，去掉多余的 /
+     */
+    private String filePath(String path, String filename) {
+        path = path.replaceAll("/+", "/");
+        if (path.indexOf("/") == 0) {
+            path = path.substring(1);
+        }
+        return path + "/" + filename;
     }
 }
@@ -0,0 +1,100 @@
+package me.test.minio.configurer.oss;
+
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import io.minio.Time;
+import io.minio.http.Method;
+import okhttp3.HttpUrl;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * BatchPresigner 与 MinioClient.getPresignedObjectUrl 生成的地址逐字节一致
+ * <p>
+ * 以 minio-java 签出地址中的 X-Amz-Date 作为签名时间，再用 BatchPresigner 签同一请求；
+ * 升级 minio-java 后签名流程有变化时此处失败。
+ */
+class BatchPresignerTest {
+
+    private static final String ENDPOINT = "http://127.0.0.1:9000";
+
+    private static final String ACCESS_KEY = "minioadmin";
+
+    private static final String SECRET_KEY = "minioadmin";
+
+    private static final String BUCKET = "test-bucket";
+
+    private static final int EXPIRY = 3600;
+
+    /**
+     * 设置 region 后签名不需要请求服务端
+     */
+    private final MinioClient minioClient = MinioClient.builder()
+            .endpoint(ENDPOINT)
+            .credentials(ACCESS_KEY, SECRET_KEY)
+            .region("us-east-1")
+            .build();
+
+    private final BatchPresigner presigner = new BatchPresigner(new CustomMinioClient(minioClient), ACCESS_KEY, SECRET_KEY);
+
+    @Test
+    void presignMatchesMinioClient() throws Exception {
+        for (String objectName : Arrays.asList("files/2021-03-23/a.png", "目录/文件 (1)+=&.txt", "a/b/c~!*'.bin")) {
+            String expected = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    .method(Method.GET).bucket(BUCKET).object(objectName).expiry(EXPIRY).build());
+            assertEquals(expected, presigner.presign(Method.GET, BUCKET, objectName, EXPIRY, null, signedAt(expected)));
+        }
+    }
+
+    @Test
+    void presignWithQueryParamsMatchesMinioClient() throws Exception {
+        Map<String, String> queryParams = new HashMap<>();
+        queryParams.put("response-content-type", "image/png");
+        queryParams.put("response-content-disposition", "attachment; filename=\"a b.png\"");
+        String expected = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                .method(Method.GET).bucket(BUCKET).object("a.png").expiry(EXPIRY).extraQueryParams(queryParams).build());
+        assertEquals(expected, presigner.presign(Method.GET, BUCKET, "a.png", EXPIRY, queryParams, signedAt(expected)));
+    }
+
+    @Test
+    void presignPartsMatchesMinioClient() throws Exception {
+        String objectName = "files/2021-03-23/uuid/large file.zip";
+        String uploadId = "YjJkNWE0ZGMtYjE1Yy00ZTg3LWE2MmEtNmFjNjFkMzA3ZDQ2";
+        for (int partNumber : Arrays.asList(1, 2, 17, 10000)) {
+            Map<String, String> queryParams = new HashMap<>();
+            queryParams.put("uploadId", uploadId);
+            queryParams.put("partNumber", String.valueOf(partNumber));
+            String expected = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    .method(Method.PUT).bucket(BUCKET).object(objectName).expiry(EXPIRY).extraQueryParams(queryParams).build());
+            List<String> urls = presigner.presignParts(BUCKET, objectName, uploadId,
+                    Collections.singletonList(partNumber), null, EXPIRY, signedAt(expected));
+            assertEquals(expected, urls.get(0));
+        }
+    }
+
+    @Test
+    void templateReuseMatchesSingleSigning() {
+        ZonedDateTime date = ZonedDateTime.now();
+        String objectName = "files/2021-03-23/uuid/large file.zip";
+        List<Integer> partNumbers = Arrays.asList(1, 2, 3, 99, 1000);
+        List<String> batch = presigner.presignParts(BUCKET, objectName, "upload", partNumbers, null, EXPIRY, date);
+        List<String> single = new ArrayList<>();
+        for (int partNumber : partNumbers) {
+            single.addAll(presigner.presignParts(BUCKET, objectName, "upload", Collections.singletonList(partNumber), null, EXPIRY, date));
+        }
+        assertEquals(single, batch);
+    }
+
+    private static ZonedDateTime signedAt(String url) {
+        return ZonedDateTime.parse(HttpUrl.get(url).queryParameter("X-Amz-Date"), Time.AMZ_DATE_FORMAT);
+    }
+}
@@ -0,0 +1,177 @@
+package me.test.minio.configurer.oss;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * ObjectInventory 在合并、重启、日志损坏和合并中途退出时保持一致
+ */
+class ObjectInventoryTest {
+
+    private static final String BUCKET = "bucket";
+
+    /**
+     * 自动合并阈值设得足够大，合并只在测试中显式触发
+     */
+    private static final int COMPACT_THRESHOLD = 1_000_000;
+
+    @TempDir
+    File dir;
+
+    private ObjectInventory inventory;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (inventory != null) {
+            inventory.close();
+        }
+    }
+
+    @Test
+    void putRemoveListStatsAcrossCompact() throws IOException {
+        inventory = open();
+        for (int i = 0; i < 10; i++) {
+            inventory.put(BUCKET, object("a/" + i, 100));
+            inventory.put(BUCKET, object("b/" + i, 10));
+        }
+        inventory.put("bucket-2", object("a/0", 1000));
+        inventory.remove(BUCKET, "a/3");
+        assertState(9, 900, 10, 100);
+
+        inventory.compact();
+        assertState(9, 900, 10, 100);
+        assertEquals(new ObjectInventory.Stats(1, 1000), inventory.stats("bucket-2", "a/"));
+
+        // 合并后的变更覆盖快照：删除、覆盖、删除后重新写入
+        inventory.remove(BUCKET, "b/0");
+        inventory.put(BUCKET, object("b/1", 50));
+        inventory.remove(BUCKET, "a/4");
+        inventory.put(BUCKET, object("a/4", 1));
+        inventory.put(BUCKET, object("a/3", 100));
+        assertState(10, 901, 9, 130);
+        assertEquals(Arrays.asList("a/3", "a/4", "a/5"), keys(inventory.list(BUCKET, "a/", "a/2", 3)));
+        assertEquals(50, inventory.get(BUCKET, "b/1").getSize());
+        assertNull(inventory.get(BUCKET, "b/0"));
+
+        inventory.compact();
+        assertState(10, 901, 9, 130);
+
+        inventory.close();
+        inventory = open();
+        assertState(10, 901, 9, 130);
+        assertEquals(1000, inventory.get("bucket-2", "a/0").getSize());
+    }
+
+    @Test
+    void listsInUtf8ByteOrder() {
+        inventory = open();
+        // U+1F600 在 UTF-16 中是代理对 D83D DE00，String.compareTo 会把它排在 U+E000、U+FF01 之前，服务端排在之后
+        List<String> expected = Arrays.asList("k/a", "k/\u00e9", "k/\ue000", "k/\uff01", "k/\ud83d\ude00");
+        for (int i = expected.size() - 1; i >= 0; i--) {
+            inventory.put(BUCKET, object(expected.get(i), 1));
+        }
+        assertEquals(expected, keys(inventory.list(BUCKET, "k/", null, 10)));
+        inventory.compact();
+        assertEquals(expected, keys(inventory.list(BUCKET, "k/", null, 10)));
+        assertEquals(expected.subList(4, 5), keys(inventory.list(BUCKET, "k/", "k/\uff01", 10)));
+        for (String key : expected) {
+            assertNotNull(inventory.get(BUCKET, key), key);
+        }
+    }
+
+    @Test
+    void restartWithTornJournalTail() throws IOException {
+        inventory = open();
+        inventory.put(BUCKET, object("a/1", 1));
+        inventory.put(BUCKET, object("a/2", 2));
+        inventory.remove(BUCKET, "a/1");
+        inventory.close();
+
+        // 进程在写一条记录中途退出：只写出了操作码和部分长度
+        Path journal = new File(dir, "inventory.log").toPath();
+        long intact = Files.size(journal);
+        Files.write(journal, new byte[]{1, 0, 0}, StandardOpenOption.APPEND);
+
+        inventory = open();
+        assertEquals(intact, Files.size(journal));
+        assertNull(inventory.get(BUCKET, "a/1"));
+        assertEquals(new ObjectInventory.Stats(1, 2), inventory.stats(BUCKET, "a/"));
+
+        // 截断后追加的记录在下次启动时仍能读出
+        inventory.put(BUCKET, object("a/3", 3));
+        inventory.close();
+        inventory = open();
+        assertEquals(Arrays.asList("a/2", "a/3"), keys(inventory.list(BUCKET, "a/", null, 10)));
+        assertEquals(new ObjectInventory.Stats(2, 5), inventory.stats(BUCKET, "a/"));
+    }
+
+    @Test
+    void restartBetweenInstallAndFrozenJournalDelete() throws IOException {
+        inventory = open();
+        inventory.put(BUCKET, object("a/1", 1));
+        inventory.put(BUCKET, object("a/2", 2));
+        inventory.remove(BUCKET, "a/2");
+        inventory.put(BUCKET, object("a/3", 3));
+        Path journal = new File(dir, "inventory.log").toPath();
+        Path frozenCopy = new File(dir, "frozen.copy").toPath();
+        Files.copy(journal, frozenCopy);
+
+        inventory.compact();
+        inventory.remove(BUCKET, "a/1");
+        inventory.put(BUCKET, object("a/2", 20));
+        inventory.close();
+
+        // 新快照已就位，但冻结的日志还没删除：重启时它会在当前日志之前再重放一遍
+        Files.move(frozenCopy, new File(dir, "inventory.log.old").toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        inventory = open();
+        assertEquals(Arrays.asList("a/2", "a/3"), keys(inventory.list(BUCKET, "a/", null, 10)));
+        assertEquals(new ObjectInventory.Stats(2, 23), inventory.stats(BUCKET, "a/"));
+
+        // 再次合并后遗留的冻结日志被清理，结果不变
+        inventory.compact();
+        assertFalse(new File(dir, "inventory.log.old").exists());
+        assertEquals(new ObjectInventory.Stats(2, 23), inventory.stats(BUCKET, "a/"));
+        inventory.close();
+        inventory = open();
+        assertEquals(Arrays.asList("a/2", "a/3"), keys(inventory.list(BUCKET, "a/", null, 10)));
+        assertEquals(20, inventory.get(BUCKET, "a/2").getSize());
+    }
+
+    private ObjectInventory open() {
+        return new ObjectInventory(dir, COMPACT_THRESHOLD);
+    }
+
+    private void assertState(long aCount, long aSize, long bCount, long bSize) {
+        assertEquals(new ObjectInventory.Stats(aCount, aSize), inventory.stats(BUCKET, "a/"));
+        assertEquals(new ObjectInventory.Stats(bCount, bSize), inventory.stats(BUCKET, "b/"));
+        assertEquals(new ObjectInventory.Stats(aCount + bCount, aSize + bSize), inventory.stats(BUCKET, null));
+        List<ObjectSummary> all = inventory.list(BUCKET, null, null, 100);
+        assertEquals(aCount + bCount, all.size());
+        assertEquals(aSize + bSize, all.stream().mapToLong(ObjectSummary::getSize).sum());
+    }
+
+    private static ObjectSummary object(String key, long size) {
+        return new ObjectSummary(key, size, "etag-" + key, 1_600_000_000_000L);
+    }
+
+    private static List<String> keys(List<ObjectSummary> objects) {
+        return objects.stream().map(ObjectSummary::getKey).collect(Collectors.toList());
+    }
+}